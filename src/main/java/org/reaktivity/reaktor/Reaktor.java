@@ -15,15 +15,18 @@
  */
 package org.reaktivity.reaktor;
 
+import static java.lang.String.format;
 import static org.agrona.LangUtil.rethrowUnchecked;
 import static org.agrona.concurrent.AgentRunner.startOnThread;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.IntFunction;
+import java.util.logging.Logger;
 
 import org.agrona.CloseHelper;
 import org.agrona.ErrorHandler;
@@ -35,6 +38,7 @@ import org.reaktivity.nukleus.Controller;
 import org.reaktivity.nukleus.Nukleus;
 import org.reaktivity.nukleus.buffer.BufferPool;
 import org.reaktivity.reaktor.internal.State;
+import org.reaktivity.reaktor.internal.buffer.TrackingBufferPool;
 
 public final class Reaktor implements AutoCloseable
 {
@@ -42,6 +46,7 @@ public final class Reaktor implements AutoCloseable
     private final ErrorHandler errorHandler;
     private final Map<String, Nukleus> nukleiByName;
     private final Map<Class<? extends Controller>, Controller> controllersByKind;
+    private final List<AutoCloseable> resources;
 
     private volatile Core[] cores;
 
@@ -51,6 +56,17 @@ public final class Reaktor implements AutoCloseable
         State[] states,
         IntFunction<String> roleName)
     {
+        this(idleStrategy, errorHandler, states, roleName, Collections.emptyList());
+    }
+
+    Reaktor(
+        IdleStrategy idleStrategy,
+        ErrorHandler errorHandler,
+        State[] states,
+        IntFunction<String> roleName,
+        List<AutoCloseable> resources)
+    {
+        this.resources = resources;
         this.idleStrategy = idleStrategy;
         this.errorHandler = errorHandler;
         this.nukleiByName = new ConcurrentHashMap<>();
@@ -129,6 +145,18 @@ public final class Reaktor implements AutoCloseable
             }
         }
 
+        for (AutoCloseable resource : resources)
+        {
+            try
+            {
+                resource.close();
+            }
+            catch (Throwable t)
+            {
+                errors.add(t);
+            }
+        }
+
         if (!errors.isEmpty())
         {
             final Throwable t = errors.get(0);
@@ -148,6 +176,7 @@ public final class Reaktor implements AutoCloseable
         private final BufferPool bufferPool;
         private final Nukleus[] nuklei;
         private final Controller[] controllers;
+        private final Runnable checkLongHeld;
 
         private volatile AgentRunner runner;
 
@@ -159,6 +188,9 @@ public final class Reaktor implements AutoCloseable
             this.nuklei = state.nuklei().toArray(new Nukleus[0]);
             this.controllers = state.controllers().toArray(new Controller[0]);
             this.bufferPool = state.bufferPool();
+            this.checkLongHeld = bufferPool instanceof TrackingBufferPool
+                    ? newCheckLongHeld((TrackingBufferPool) bufferPool)
+                    : () -> {};
         }
 
         public void start()
@@ -196,9 +228,25 @@ public final class Reaktor implements AutoCloseable
                 work += controllers[i].process();
             }
 
+            checkLongHeld.run();
+
             return work;
         }
 
+        private Runnable newCheckLongHeld(
+            TrackingBufferPool trackingBufferPool)
+        {
+            final Logger logger = Logger.getLogger(Reaktor.class.getPackage().getName());
+            return () ->
+            {
+                final String report = trackingBufferPool.checkLongHeld(System.nanoTime());
+                if (report != null)
+                {
+                    logger.warning(format("[%s] long-held buffer slots%s", roleName, report));
+                }
+            };
+        }
+
         @Override
         public void onClose()
         {
@@ -228,7 +276,10 @@ public final class Reaktor implements AutoCloseable
 
             if (bufferPool.acquiredSlots() != 0)
             {
-                errors.add(new IllegalStateException("Buffer pool has unreleased slots: " + bufferPool.acquiredSlots()));
+                final String owners = bufferPool instanceof TrackingBufferPool
+                        ? ((TrackingBufferPool) bufferPool).describe(System.nanoTime(), 0L)
+                        : "";
+                errors.add(new IllegalStateException("Buffer pool has unreleased slots: " + bufferPool.acquiredSlots() + owners));
             }
 
             if (!errors.isEmpty())
@@ -18,7 +18,11 @@ package org.reaktivity.reaktor;
 import static java.lang.Integer.bitCount;
 import static java.lang.Integer.numberOfTrailingZeros;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.ToIntFunction;
@@ -32,10 +36,14 @@ import org.reaktivity.nukleus.ControllerFactory;
 import org.reaktivity.nukleus.Nukleus;
 import org.reaktivity.nukleus.NukleusBuilder;
 import org.reaktivity.nukleus.NukleusFactory;
+import org.reaktivity.nukleus.buffer.BufferPool;
 import org.reaktivity.reaktor.internal.ControllerBuilderImpl;
 import org.reaktivity.reaktor.internal.NukleusBuilderImpl;
 import org.reaktivity.reaktor.internal.ReaktorConfiguration;
 import org.reaktivity.reaktor.internal.StateImpl;
+import org.reaktivity.reaktor.internal.buffer.SharedBufferPool;
+import org.reaktivity.reaktor.internal.buffer.TrackingBufferPool;
+import org.reaktivity.reaktor.internal.layouts.GroupBudgetsLayout;
 
 public class ReaktorBuilder
 {
@@ -128,10 +136,55 @@ public class ReaktorBuilder
     {
         final ReaktorConfiguration config = new ReaktorConfiguration(this.config != null ? this.config : new Configuration());
 
+        final List<AutoCloseable> resources = new ArrayList<>();
+        final IntFunction<BufferPool> supplyBufferPool;
+        if (config.bufferPoolShared())
+        {
+            if (config.bufferPoolMaxCapacity() > config.bufferPoolCapacity() ||
+                config.bufferPoolMapped())
+            {
+                throw new IllegalStateException(
+                        "shared buffer pool cannot be combined with elastic or mapped buffer pools");
+            }
+
+            final SharedBufferPool sharedBufferPool = new SharedBufferPool(config.bufferPoolCapacity(),
+                    config.bufferSlotCapacity(), config.bufferPoolMagazineCapacity(), threads);
+            supplyBufferPool = index -> sharedBufferPool.newCorePool();
+        }
+        else
+        {
+            if (config.bufferPoolMaxCapacity() > config.bufferPoolCapacity() &&
+                config.bufferPoolMapped())
+            {
+                throw new IllegalStateException("mapped buffer pool cannot be combined with elastic buffer pool");
+            }
+
+            supplyBufferPool = index -> StateImpl.newBufferPool(index, config, resources::add);
+        }
+
+        GroupBudgetsLayout groupBudgets = null;
+        final int groupBudgetsCapacity = config.groupBudgetsCapacity();
+        if (groupBudgetsCapacity != 0)
+        {
+            // opened, not recreated, so budgets shared with other reaktors in the same directory survive
+            groupBudgets = new GroupBudgetsLayout.Builder()
+                .path(config.directory().resolve("budgets"))
+                .capacity(groupBudgetsCapacity)
+                .readonly(false)
+                .build();
+            resources.add(groupBudgets);
+        }
+
         final StateImpl[] states = new StateImpl[threads];
         for (int thread=0; thread < threads; thread++)
         {
-            states[thread] = new StateImpl(thread, threads, config);
+            BufferPool bufferPool = supplyBufferPool.apply(thread);
+            if (config.bufferPoolTracking())
+            {
+                bufferPool = new TrackingBufferPool(bufferPool, config.bufferPoolTrackingSampleRate(),
+                        MILLISECONDS.toNanos(config.bufferPoolTrackingTimeout()));
+            }
+            states[thread] = new StateImpl(thread, threads, bufferPool);
         }
 
         final NukleusFactory nukleusFactory = supplyNukleusFactory.get();
@@ -142,7 +195,7 @@ public class ReaktorBuilder
                 int affinity = supplyAffinity(name);
                 StateImpl state = states[affinity];
 
-                NukleusBuilder builder = new NukleusBuilderImpl(config, name, state);
+                NukleusBuilder builder = new NukleusBuilderImpl(config, name, state, groupBudgets);
                 Nukleus nukleus = nukleusFactory.create(name, config, builder);
 
                 state.assign(nukleus);
@@ -176,7 +229,7 @@ public class ReaktorBuilder
         }
         ErrorHandler errorHandler = requireNonNull(this.errorHandler, "errorHandler");
 
-        return new Reaktor(idleStrategy, errorHandler, states, t -> String.format("%s%d", roleName, t));
+        return new Reaktor(idleStrategy, errorHandler, states, t -> String.format("%s%d", roleName, t), resources);
     }
 
     private int supplyAffinity(
@@ -0,0 +1,97 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.agrona.IoUtil.tmpDirName;
+
+import java.nio.file.Paths;
+import java.util.Properties;
+
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.reaktivity.nukleus.Configuration;
+import org.reaktivity.reaktor.internal.ReaktorConfiguration;
+import org.reaktivity.reaktor.internal.layouts.CaptureLayout;
+import org.reaktivity.reaktor.internal.layouts.StreamsLayout;
+import org.reaktivity.reaktor.internal.replay.Replayer;
+
+public final class ReaktorReplay
+{
+    public static void main(final String[] args) throws Exception
+    {
+        CommandLineParser parser = new DefaultParser();
+
+        Options options = new Options();
+        options.addOption(Option.builder("d").longOpt("directory").hasArg().desc("configuration directory").build());
+        options.addOption(Option.builder("h").longOpt("help").desc("print this message").build());
+        options.addOption(Option.builder("n").longOpt("nukleus").hasArg().required().desc("nukleus name").build());
+        options.addOption(Option.builder("s").longOpt("source").hasArg().required().desc("source name").build());
+        options.addOption(Option.builder("c").longOpt("capture").hasArg().required().desc("capture file").build());
+        options.addOption(Option.builder("x").longOpt("speedup").hasArg().desc("speedup factor, 0 for unpaced").build());
+        options.addOption(Option.builder("q").longOpt("quiescence").hasArg().desc("source quiescence in ms").build());
+
+        if (args.length == 0 || "-h".equals(args[0]) || "--help".equals(args[0]))
+        {
+            HelpFormatter formatter = new HelpFormatter();
+            formatter.printHelp("reaktor-replay", options);
+        }
+        else
+        {
+            CommandLine cmdline = parser.parse(options, args);
+
+            String directory = cmdline.getOptionValue("directory", format("%s/org.reaktivity.reaktor", tmpDirName()));
+            String nukleus = cmdline.getOptionValue("nukleus");
+            String source = cmdline.getOptionValue("source");
+            double speedup = Double.parseDouble(cmdline.getOptionValue("speedup", "1.0"));
+            long quiescence = MILLISECONDS.toNanos(Long.parseLong(cmdline.getOptionValue("quiescence", "1000")));
+
+            Properties properties = new Properties();
+            properties.setProperty(Configuration.DIRECTORY_PROPERTY_NAME, directory);
+
+            ReaktorConfiguration config = new ReaktorConfiguration(properties);
+
+            try (CaptureLayout capture = new CaptureLayout.Builder()
+                    .path(Paths.get(cmdline.getOptionValue("capture")))
+                    .readonly(true)
+                    .build();
+                 StreamsLayout streams = new StreamsLayout.Builder()
+                    .path(config.directory().resolve(format("%s/streams/%s", nukleus, source)))
+                    .streamsCapacity(config.streamsBufferCapacity(nukleus, source))
+                    .throttleCapacity(config.throttleBufferCapacity(nukleus, source))
+                    .readonly(true)
+                    .build())
+            {
+                BackoffIdleStrategy idleStrategy = new BackoffIdleStrategy(64, 64, 64, 1_000_000);
+                Replayer replayer = new Replayer(capture, streams, speedup, quiescence, idleStrategy);
+
+                long startedAt = System.nanoTime();
+                int frames = replayer.replay();
+                long elapsed = System.nanoTime() - startedAt;
+
+                System.out.println(format("Replayed %d frames into %s/%s in %d ms", frames, nukleus, source,
+                        NANOSECONDS.toMillis(elapsed)));
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal;
+
+import org.agrona.concurrent.status.AtomicCounter;
+
+/**
+ * A counter that accumulates increments in a plain field and publishes them to its underlying
+ * counter when flushed, keeping atomic updates of the shared counters buffer off the data path.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class BatchedCounter
+{
+    private final AtomicCounter counter;
+
+    private long pending;
+
+    BatchedCounter(
+        AtomicCounter counter)
+    {
+        this.counter = counter;
+    }
+
+    public long increment()
+    {
+        return ++pending;
+    }
+
+    public long get()
+    {
+        return counter.get() + pending;
+    }
+
+    public void flush()
+    {
+        if (pending != 0L)
+        {
+            counter.addOrdered(pending);
+            pending = 0L;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package org.reaktivity.reaktor.internal;
 
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.agrona.CloseHelper.quietClose;
 import static org.agrona.LangUtil.rethrowUnchecked;
 
@@ -24,7 +25,9 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Objects;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
 import org.agrona.ErrorHandler;
 import org.agrona.concurrent.AtomicBuffer;
@@ -33,7 +36,9 @@ import org.agrona.concurrent.broadcast.BroadcastTransmitter;
 import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
 import org.agrona.concurrent.ringbuffer.RingBuffer;
 import org.agrona.concurrent.status.CountersManager;
+import org.reaktivity.reaktor.internal.buffer.BufferPoolMetrics;
 import org.reaktivity.reaktor.internal.layouts.ControlLayout;
+import org.reaktivity.reaktor.internal.layouts.GroupBudgetsLayout;
 import org.reaktivity.reaktor.internal.layouts.RoutesLayout;
 
 public final class Context implements Closeable
@@ -45,11 +50,36 @@ public final class Context implements Closeable
     private Path configDirectory;
     private ControlLayout controlRO;
     private RoutesLayout routesRO;
+    private GroupBudgetsLayout groupBudgets;
     private int maximumStreamsCount;
     private int streamsBufferCapacity;
     private int throttleBufferCapacity;
+    private boolean streamsGauges;
+    private long streamsStallTimeoutNanos;
+    private int streamsWriteRetries;
+    private int streamsRecorderCapacity;
+    private int bufferPoolQuota;
+    private BufferPoolMetrics bufferPoolMetrics;
+    private boolean countersBatched;
+    private boolean countersSingleWriter;
+    private long countersFreeCooldownNanos;
+    private boolean countersRoutes;
+    private int countersStripes;
+    private int groupBudgetsHandles;
+    private boolean groupBudgetsFairShare;
+    private boolean groupBudgetsGauges;
+    private int groupBudgetsGaugesTop;
+    private long groupBudgetsGaugesIntervalNanos;
+    private Function<String, Path> sourceRecorderPath;
+    private Function<String, Path> targetRecorderPath;
+    private Function<String, Path> sourceCapturePath;
+    private ToIntFunction<String> sourceCaptureCapacity;
     private Function<String, Path> sourceStreamsPath;
     private Function<String, Path> targetStreamsPath;
+    private ToIntFunction<String> sourceStreamsCapacity;
+    private ToIntFunction<String> sourceThrottleCapacity;
+    private ToIntFunction<String> targetStreamsCapacity;
+    private ToIntFunction<String> targetThrottleCapacity;
     private IdleStrategy idleStrategy;
     private ErrorHandler errorHandler;
     private CountersManager countersManager;
@@ -91,6 +121,76 @@ public final class Context implements Closeable
         return throttleBufferCapacity;
     }
 
+    public boolean streamsGauges()
+    {
+        return streamsGauges;
+    }
+
+    public long streamsStallTimeoutNanos()
+    {
+        return streamsStallTimeoutNanos;
+    }
+
+    public int streamsWriteRetries()
+    {
+        return streamsWriteRetries;
+    }
+
+    public boolean countersBatched()
+    {
+        return countersBatched;
+    }
+
+    public boolean countersSingleWriter()
+    {
+        return countersSingleWriter;
+    }
+
+    public boolean countersRoutes()
+    {
+        return countersRoutes;
+    }
+
+    public int groupBudgetsHandles()
+    {
+        return groupBudgetsHandles;
+    }
+
+    public boolean groupBudgetsFairShare()
+    {
+        return groupBudgetsFairShare;
+    }
+
+    public boolean groupBudgetsGauges()
+    {
+        return groupBudgetsGauges;
+    }
+
+    public int groupBudgetsGaugesTop()
+    {
+        return groupBudgetsGaugesTop;
+    }
+
+    public long groupBudgetsGaugesIntervalNanos()
+    {
+        return groupBudgetsGaugesIntervalNanos;
+    }
+
+    public BufferPoolMetrics bufferPoolMetrics()
+    {
+        return bufferPoolMetrics;
+    }
+
+    public int bufferPoolQuota()
+    {
+        return bufferPoolQuota;
+    }
+
+    public int streamsRecorderCapacity()
+    {
+        return streamsRecorderCapacity;
+    }
+
     public int maxMessageLength()
     {
         // see RingBuffer.maxMessageLength()
@@ -140,6 +240,94 @@ public final class Context implements Closeable
         return targetStreamsPath;
     }
 
+    public Context sourceRecorderPath(Function<String, Path> sourceRecorderPath)
+    {
+        this.sourceRecorderPath = sourceRecorderPath;
+        return this;
+    }
+
+    public Function<String, Path> sourceRecorderPath()
+    {
+        return sourceRecorderPath;
+    }
+
+    public Context targetRecorderPath(Function<String, Path> targetRecorderPath)
+    {
+        this.targetRecorderPath = targetRecorderPath;
+        return this;
+    }
+
+    public Function<String, Path> targetRecorderPath()
+    {
+        return targetRecorderPath;
+    }
+
+    public Context sourceCapturePath(Function<String, Path> sourceCapturePath)
+    {
+        this.sourceCapturePath = sourceCapturePath;
+        return this;
+    }
+
+    public Function<String, Path> sourceCapturePath()
+    {
+        return sourceCapturePath;
+    }
+
+    public Context sourceCaptureCapacity(ToIntFunction<String> sourceCaptureCapacity)
+    {
+        this.sourceCaptureCapacity = sourceCaptureCapacity;
+        return this;
+    }
+
+    public ToIntFunction<String> sourceCaptureCapacity()
+    {
+        return sourceCaptureCapacity;
+    }
+
+    public Context sourceStreamsCapacity(ToIntFunction<String> sourceStreamsCapacity)
+    {
+        this.sourceStreamsCapacity = sourceStreamsCapacity;
+        return this;
+    }
+
+    public ToIntFunction<String> sourceStreamsCapacity()
+    {
+        return sourceStreamsCapacity;
+    }
+
+    public Context sourceThrottleCapacity(ToIntFunction<String> sourceThrottleCapacity)
+    {
+        this.sourceThrottleCapacity = sourceThrottleCapacity;
+        return this;
+    }
+
+    public ToIntFunction<String> sourceThrottleCapacity()
+    {
+        return sourceThrottleCapacity;
+    }
+
+    public Context targetStreamsCapacity(ToIntFunction<String> targetStreamsCapacity)
+    {
+        this.targetStreamsCapacity = targetStreamsCapacity;
+        return this;
+    }
+
+    public ToIntFunction<String> targetStreamsCapacity()
+    {
+        return targetStreamsCapacity;
+    }
+
+    public Context targetThrottleCapacity(ToIntFunction<String> targetThrottleCapacity)
+    {
+        this.targetThrottleCapacity = targetThrottleCapacity;
+        return this;
+    }
+
+    public ToIntFunction<String> targetThrottleCapacity()
+    {
+        return targetThrottleCapacity;
+    }
+
     public Context idleStrategy(IdleStrategy idleStrategy)
     {
         this.idleStrategy = idleStrategy;
@@ -249,6 +437,17 @@ public final class Context implements Closeable
         return routesRO;
     }
 
+    public Context groupBudgetsLayout(GroupBudgetsLayout groupBudgets)
+    {
+        this.groupBudgets = groupBudgets;
+        return this;
+    }
+
+    public GroupBudgetsLayout groupBudgetsLayout()
+    {
+        return groupBudgets;
+    }
+
     public Context conclude(ReaktorConfiguration config)
     {
         try
@@ -263,6 +462,40 @@ public final class Context implements Closeable
 
             this.throttleBufferCapacity = config.throttleBufferCapacity();
 
+            this.streamsGauges = config.streamsGauges();
+
+            this.streamsStallTimeoutNanos = MILLISECONDS.toNanos(config.streamsStallTimeout());
+
+            this.streamsWriteRetries = config.streamsWriteRetries();
+
+            this.streamsRecorderCapacity = config.streamsRecorderCapacity();
+
+            this.bufferPoolQuota = config.bufferPoolQuota(name);
+
+            this.bufferPoolMetrics = config.bufferPoolMetrics()
+                    ? new BufferPoolMetrics(config.bufferPoolMaxCapacity() / config.bufferSlotCapacity())
+                    : null;
+
+            this.countersBatched = config.countersBatched();
+
+            this.countersSingleWriter = config.countersSingleWriter();
+
+            this.countersFreeCooldownNanos = MILLISECONDS.toNanos(config.countersFreeCooldown());
+
+            this.countersRoutes = config.countersRoutes();
+
+            this.countersStripes = config.countersStripes();
+
+            this.groupBudgetsHandles = config.groupBudgetsHandles();
+
+            this.groupBudgetsFairShare = config.groupBudgetsFairShare();
+
+            this.groupBudgetsGauges = config.groupBudgetsGauges();
+
+            this.groupBudgetsGaugesTop = groupBudgetsGauges ? config.groupBudgetsGaugesTop() : 0;
+
+            this.groupBudgetsGaugesIntervalNanos = MILLISECONDS.toNanos(config.groupBudgetsGaugesInterval());
+
             this.maximumControlCommandLength = config.commandBufferCapacity() / 8;
 
             this.maximumControlResponseLength = config.responseBufferCapacity() / 8;
@@ -273,6 +506,25 @@ public final class Context implements Closeable
 
             targetStreamsPath(target -> configDirectory.resolve(targetPath(target)));
 
+            sourceRecorderPath(source -> configDirectory.resolve(format("%s/recorder/source/%s", name, source)));
+
+            targetRecorderPath(target -> configDirectory.resolve(format("%s/recorder/target/%s", name, target)));
+
+            sourceCapturePath(source -> configDirectory.resolve(format("%s/capture/%s", name, source)));
+
+            final int captureCapacity = config.streamsCaptureCapacity();
+            final Pattern capturePattern = Pattern.compile(config.streamsCapturePattern());
+            sourceCaptureCapacity(source ->
+                capturePattern.matcher(format("%s.%s", name, source)).matches() ? captureCapacity : 0);
+
+            sourceStreamsCapacity(source -> config.streamsBufferCapacity(name, source));
+
+            sourceThrottleCapacity(source -> config.throttleBufferCapacity(name, source));
+
+            targetStreamsCapacity(target -> config.streamsBufferCapacity(target, name));
+
+            targetThrottleCapacity(target -> config.throttleBufferCapacity(target, name));
+
             this.controlRO = controlRW
                     .controlPath(config.directory().resolve(format("%s/control", name)))
                     .commandBufferCapacity(config.commandBufferCapacity())
@@ -293,7 +545,6 @@ public final class Context implements Closeable
             routesRW.routesPath(config.directory().resolve(format("%s/routes", name)))
                     .routesBufferCapacity(config.routesBufferCapacity())
                     .readonly(readonly());
-
         }
         catch (Exception ex)
         {
@@ -327,7 +578,7 @@ public final class Context implements Closeable
 
         if (counters == null)
         {
-            counters = new Counters(countersManager);
+            counters = new Counters(countersManager, countersFreeCooldownNanos, System::nanoTime, countersStripes);
         }
     }
 
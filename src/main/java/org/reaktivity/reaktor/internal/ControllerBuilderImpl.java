@@ -252,8 +252,8 @@ public final class ControllerBuilderImpl<T extends Controller> implements Contro
         {
             return new StreamsLayout.Builder()
                     .path(context.sourceStreamsPath().apply(sourceName))
-                    .streamsCapacity(context.streamsBufferCapacity())
-                    .throttleCapacity(context.throttleBufferCapacity())
+                    .streamsCapacity(context.sourceStreamsCapacity().applyAsInt(sourceName))
+                    .throttleCapacity(context.sourceThrottleCapacity().applyAsInt(sourceName))
                     .readonly(true)
                     .build();
         }
@@ -263,8 +263,8 @@ public final class ControllerBuilderImpl<T extends Controller> implements Contro
         {
             return new StreamsLayout.Builder()
                     .path(context.targetStreamsPath().apply(targetName))
-                    .streamsCapacity(context.streamsBufferCapacity())
-                    .throttleCapacity(context.throttleBufferCapacity())
+                    .streamsCapacity(context.targetStreamsCapacity().applyAsInt(targetName))
+                    .throttleCapacity(context.targetThrottleCapacity().applyAsInt(targetName))
                     .readonly(false)
                     .build();
         }
@@ -15,35 +15,104 @@
  */
 package org.reaktivity.reaktor.internal;
 
+import static org.agrona.BitUtil.findNextPositivePowerOfTwo;
+import static org.agrona.concurrent.status.CountersReader.LABEL_OFFSET;
+import static org.agrona.concurrent.status.CountersReader.METADATA_LENGTH;
+import static org.agrona.concurrent.status.CountersReader.RECORD_ALLOCATED;
+import static org.agrona.concurrent.status.CountersReader.RECORD_UNUSED;
+import static org.agrona.concurrent.status.CountersReader.TYPE_ID_OFFSET;
+import static org.agrona.concurrent.status.CountersReader.metaDataOffset;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.LongConsumer;
 import java.util.function.LongSupplier;
 
 import org.agrona.CloseHelper;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.status.AtomicCounter;
 import org.agrona.concurrent.status.CountersManager;
 
 public final class Counters implements AutoCloseable
 {
+    private static final String RECLAIMED_COUNTER_NAME = "counters.reclaimed";
+
+    private static final int STRIPE_TYPE_ID = 1;
+
+    private static final Consumer<MutableDirectBuffer> NO_KEY = b -> {};
+
+    private static final LongSupplier ZERO = () -> 0L;
+
     private final CountersManager manager;
     private final ConcurrentMap<String, AtomicCounter> counters;
     private final ConcurrentMap<String, LongSupplier> readonlyCounters;
     private final Function<? super String, ? extends AtomicCounter> newCounter;
+    private final Map<String, BatchedCounter> batchedCounters;
+    private final List<BatchedCounter> batchedCountersList;
+    private final Map<String, Histogram> histograms;
+    private final Map<String, ScopedCounter> scopedCounters;
+    private final Map<String, ReadonlyHistogram> readonlyHistograms;
+    private final ConcurrentMap<String, StripedCounter> stripedCounters;
+    private final Function<? super String, ? extends StripedCounter> newStripedCounter;
+    private final int stripes;
+    private final long freeCooldownNanos;
+    private final LongSupplier nanoTime;
+    private final Queue<FreedCounter> freedCounters;
+    private final BitSet reclaimedCounterIds;
 
-    Counters(
+    private int scannedCounterId;
+    private long indexedReclaimed;
+
+    public Counters(
         CountersManager manager)
+    {
+        this(manager, 0L, System::nanoTime, 0);
+    }
+
+    Counters(
+        CountersManager manager,
+        long freeCooldownNanos,
+        LongSupplier nanoTime,
+        int stripes)
     {
         this.manager = manager;
+        this.stripes = stripes != 0 ? findNextPositivePowerOfTwo(stripes) : 0;
+        this.freeCooldownNanos = freeCooldownNanos;
+        this.nanoTime = nanoTime;
+        this.freedCounters = new ArrayDeque<>();
+        this.reclaimedCounterIds = new BitSet();
         this.counters = new ConcurrentHashMap<>();
         this.readonlyCounters = new ConcurrentHashMap<>();
-        this.newCounter = manager::newCounter;
+        this.newCounter = this::newCounter;
+        this.batchedCounters = new HashMap<>();
+        this.batchedCountersList = new ArrayList<>();
+        this.histograms = new HashMap<>();
+        this.scopedCounters = new HashMap<>();
+        this.readonlyHistograms = new HashMap<>();
+        this.stripedCounters = new ConcurrentHashMap<>();
+        this.newStripedCounter = this::newStripedCounter;
     }
 
     @Override
     public void close() throws Exception
     {
+        flush();
         counters.values().forEach(CloseHelper::quietClose);
+        stripedCounters.values().forEach(StripedCounter::close);
+        scopedCounters.values().forEach(s -> CloseHelper.quietClose(s.free()));
+        scopedCounters.clear();
+        freedCounters.forEach(f -> CloseHelper.quietClose(f.counter));
+        freedCounters.clear();
     }
 
     public AtomicCounter routes()
@@ -72,28 +141,338 @@ public final class Counters implements AutoCloseable
         return counters.computeIfAbsent(name, newCounter);
     }
 
-    public LongSupplier readonlyCounter(
+    /**
+     * Supplies a striped counter when {@code reaktor.counters.stripes} is configured, otherwise {@code null}.
+     * Stripes share the counter name as label, so {@link #readonlyCounter(String)} reports their sum.
+     */
+    public StripedCounter stripedCounter(
+        String name)
+    {
+        return stripes != 0 ? stripedCounters.computeIfAbsent(name, newStripedCounter) : null;
+    }
+
+    /**
+     * Supplies an incrementing counter. When striped, the value supplied is that of the incremented stripe,
+     * and the total is only available from {@link #readonlyCounter(String)}.
+     */
+    public LongSupplier supplyCounter(
+        String name,
+        boolean singleWriter)
+    {
+        final StripedCounter striped = stripedCounter(name);
+        if (striped != null)
+        {
+            return singleWriter ? () -> striped.orderedIncrement() + 1 : () -> striped.increment() + 1;
+        }
+
+        final AtomicCounter counter = counter(name);
+        return singleWriter ? () -> counter.orderedIncrement() + 1 : () -> counter.increment() + 1;
+    }
+
+    public LongConsumer supplyAccumulator(
+        String name,
+        boolean singleWriter)
+    {
+        final StripedCounter striped = stripedCounter(name);
+        if (striped != null)
+        {
+            return singleWriter ? striped::addOrdered : striped::add;
+        }
+
+        final AtomicCounter counter = counter(name);
+        return singleWriter ? counter::addOrdered : counter::add;
+    }
+
+    public BatchedCounter batchedCounter(
+        String name)
+    {
+        return batchedCounters.computeIfAbsent(name, this::newBatchedCounter);
+    }
+
+    public Histogram histogram(
+        String name)
+    {
+        return histograms.computeIfAbsent(name, n -> new Histogram(n, this::counter));
+    }
+
+    public void flush()
+    {
+        for (int i = 0; i < batchedCountersList.size(); i++)
+        {
+            batchedCountersList.get(i).flush();
+        }
+    }
+
+    /**
+     * Supplies a counter that its owner may later {@link #free(String)}, such as a route-scoped counter.
+     * Counters handed out by name through {@link #counter(String)} and the suppliers, batched counters
+     * and histograms built on it are never freed, since their holders would keep writing into the slot.
+     */
+    public ScopedCounter scopedCounter(
+        String name)
+    {
+        ScopedCounter scopedCounter = scopedCounters.get(name);
+        if (scopedCounter == null)
+        {
+            if (counters.containsKey(name) || stripedCounters.containsKey(name))
+            {
+                throw new IllegalArgumentException(String.format("counter %s is not scoped", name));
+            }
+
+            scopedCounter = new ScopedCounter(manager.newCounter(name));
+            scopedCounters.put(name, scopedCounter);
+        }
+        return scopedCounter;
+    }
+
+    public boolean free(
         String name)
     {
+        final ScopedCounter scopedCounter = scopedCounters.remove(name);
+        if (scopedCounter != null)
+        {
+            // allocated before any reclaim so readers can always find it above reused counter ids
+            counter(RECLAIMED_COUNTER_NAME);
+
+            freedCounters.add(new FreedCounter(scopedCounter.free(), nanoTime.getAsLong() + freeCooldownNanos));
+        }
+        return scopedCounter != null;
+    }
+
+    public int reclaim()
+    {
+        int reclaimed = 0;
+
+        if (!freedCounters.isEmpty())
+        {
+            final long now = nanoTime.getAsLong();
+            while (!freedCounters.isEmpty() && freedCounters.peek().deadline - now <= 0L)
+            {
+                freedCounters.poll().counter.close();
+                reclaimed++;
+            }
+
+            if (reclaimed != 0)
+            {
+                counter(RECLAIMED_COUNTER_NAME).add(reclaimed);
+            }
+        }
+
+        return reclaimed;
+    }
+
+    public synchronized LongSupplier readonlyCounter(
+        String name)
+    {
+        LongSupplier readonlyReclaimed = readonlyCounters.get(RECLAIMED_COUNTER_NAME);
+        if (readonlyReclaimed == null && hasNewCounters())
+        {
+            // no counter has been reclaimed before the reclaimed counter exists, so it can only appear above
+            // the scanned counters and there is nothing to rescan until then
+            scanNewCounters();
+            readonlyReclaimed = readonlyCounters.get(RECLAIMED_COUNTER_NAME);
+        }
+
+        if (readonlyReclaimed != null && readonlyReclaimed.getAsLong() != indexedReclaimed)
+        {
+            indexedReclaimed = readonlyReclaimed.getAsLong();
+            readonlyCounters.clear();
+            reclaimedCounterIds.clear();
+            scannedCounterId = 0;
+        }
+
         LongSupplier readonlyCounter = readonlyCounters.get(name);
         if (readonlyCounter == null)
         {
-            manager.forEach(this::populateReadonlyCounter);
+            scanNewCounters();
             readonlyCounter = readonlyCounters.get(name);
         }
 
         if (readonlyCounter == null)
         {
-            readonlyCounter = () -> 0L;
+            readonlyCounter = ZERO;
         }
 
         return readonlyCounter;
     }
 
+    public synchronized long[] readonlyHistogram(
+        String name,
+        long[] histogram)
+    {
+        final ReadonlyHistogram readonlyHistogram = readonlyHistograms.computeIfAbsent(name, ReadonlyHistogram::new);
+
+        if (readonlyHistogram.unresolved != 0 && (hasNewCounters() || !reclaimedCounterIds.isEmpty()))
+        {
+            scanNewCounters();
+        }
+
+        for (int bucket = 0; bucket < Histogram.BUCKETS; bucket++)
+        {
+            histogram[bucket] = readonlyHistogram.bucket(bucket).getAsLong();
+        }
+
+        return histogram;
+    }
+
+    private boolean hasNewCounters()
+    {
+        final AtomicBuffer metaDataBuffer = manager.metaDataBuffer();
+        final int maxCounterId = metaDataBuffer.capacity() / METADATA_LENGTH;
+
+        return scannedCounterId < maxCounterId &&
+            metaDataBuffer.getIntVolatile(metaDataOffset(scannedCounterId)) != RECORD_UNUSED;
+    }
+
+    private void scanNewCounters()
+    {
+        final AtomicBuffer metaDataBuffer = manager.metaDataBuffer();
+        final int maxCounterId = metaDataBuffer.capacity() / METADATA_LENGTH;
+
+        for (int counterId = reclaimedCounterIds.nextSetBit(0); counterId != -1;
+                counterId = reclaimedCounterIds.nextSetBit(counterId + 1))
+        {
+            final int recordOffset = metaDataOffset(counterId);
+            if (metaDataBuffer.getIntVolatile(recordOffset) == RECORD_ALLOCATED)
+            {
+                populateReadonlyCounter(counterId, metaDataBuffer.getInt(recordOffset + TYPE_ID_OFFSET),
+                        metaDataBuffer.getStringUtf8(recordOffset + LABEL_OFFSET));
+                reclaimedCounterIds.clear(counterId);
+            }
+        }
+
+        for (; scannedCounterId < maxCounterId; scannedCounterId++)
+        {
+            final int recordOffset = metaDataOffset(scannedCounterId);
+            final int recordStatus = metaDataBuffer.getIntVolatile(recordOffset);
+
+            if (recordStatus == RECORD_UNUSED)
+            {
+                break;
+            }
+
+            if (recordStatus == RECORD_ALLOCATED)
+            {
+                populateReadonlyCounter(scannedCounterId, metaDataBuffer.getInt(recordOffset + TYPE_ID_OFFSET),
+                        metaDataBuffer.getStringUtf8(recordOffset + LABEL_OFFSET));
+            }
+            else
+            {
+                reclaimedCounterIds.set(scannedCounterId);
+            }
+        }
+    }
+
+    private AtomicCounter newCounter(
+        String name)
+    {
+        if (scopedCounters.containsKey(name))
+        {
+            throw new IllegalArgumentException(String.format("counter %s is scoped", name));
+        }
+
+        if (stripedCounters.containsKey(name))
+        {
+            throw new IllegalArgumentException(String.format("counter %s is striped", name));
+        }
+
+        return manager.newCounter(name);
+    }
+
+    private StripedCounter newStripedCounter(
+        String name)
+    {
+        if (scopedCounters.containsKey(name) || counters.containsKey(name))
+        {
+            throw new IllegalArgumentException(String.format("counter %s is not striped", name));
+        }
+
+        final AtomicCounter[] stripeCounters = new AtomicCounter[stripes];
+        for (int stripe = 0; stripe < stripes; stripe++)
+        {
+            stripeCounters[stripe] = manager.newCounter(name, STRIPE_TYPE_ID, NO_KEY);
+        }
+        return new StripedCounter(stripeCounters);
+    }
+
+    private BatchedCounter newBatchedCounter(
+        String name)
+    {
+        final BatchedCounter batchedCounter = new BatchedCounter(counter(name));
+        batchedCountersList.add(batchedCounter);
+        return batchedCounter;
+    }
+
     private void populateReadonlyCounter(
         int counterId,
+        int typeId,
         String name)
     {
-        readonlyCounters.computeIfAbsent(name, k -> () -> manager.getCounterValue(counterId));
+        final LongSupplier counter = () -> manager.getCounterValue(counterId);
+        final LongSupplier previous = readonlyCounters.putIfAbsent(name, counter);
+
+        if (previous != null && typeId == STRIPE_TYPE_ID)
+        {
+            readonlyCounters.put(name, () -> previous.getAsLong() + counter.getAsLong());
+        }
+    }
+
+    private final class ReadonlyHistogram
+    {
+        private final String[] bucketNames;
+        private final LongSupplier[] buckets;
+
+        private int unresolved;
+
+        private ReadonlyHistogram(
+            String name)
+        {
+            this.bucketNames = new String[Histogram.BUCKETS];
+            this.buckets = new LongSupplier[Histogram.BUCKETS];
+            this.unresolved = Histogram.BUCKETS;
+
+            for (int bucket = 0; bucket < Histogram.BUCKETS; bucket++)
+            {
+                bucketNames[bucket] = Histogram.bucketName(name, bucket);
+            }
+        }
+
+        private LongSupplier bucket(
+            int bucket)
+        {
+            LongSupplier supplier = buckets[bucket];
+
+            if (supplier == null)
+            {
+                supplier = readonlyCounters.get(bucketNames[bucket]);
+
+                if (supplier != null)
+                {
+                    // histogram counters are never freed, so a resolved bucket stays valid
+                    buckets[bucket] = supplier;
+                    unresolved--;
+                }
+                else
+                {
+                    supplier = ZERO;
+                }
+            }
+
+            return supplier;
+        }
+    }
+
+    private static final class FreedCounter
+    {
+        private final AtomicCounter counter;
+        private final long deadline;
+
+        private FreedCounter(
+            AtomicCounter counter,
+            long deadline)
+        {
+            this.counter = counter;
+            this.deadline = deadline;
+        }
     }
 }
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal;
+
+import static java.lang.Long.numberOfLeadingZeros;
+
+import java.util.function.Function;
+
+import org.agrona.concurrent.status.AtomicCounter;
+
+/**
+ * A log-linear histogram stored as counters in the counters values buffer, with four linear sub-buckets
+ * per power of two. Bucket counters are allocated on first use and labelled with the bucket lower bound,
+ * alongside the total count and sum, so they can be read by name like any other counter.
+ * <p>
+ * Nothing in the reaktor records into a histogram yet. {@code BufferPoolMetrics} keeps its own buckets
+ * because the buffer pool is shared by every nukleus on a core, while counters are per nukleus.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class Histogram
+{
+    public static final int BUCKETS = 248;
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_MASK = SUB_BUCKETS - 1;
+
+    private final String name;
+    private final Function<String, AtomicCounter> supplyCounter;
+    private final AtomicCounter count;
+    private final AtomicCounter sum;
+    private final AtomicCounter[] buckets;
+
+    Histogram(
+        String name,
+        Function<String, AtomicCounter> supplyCounter)
+    {
+        this.name = name;
+        this.supplyCounter = supplyCounter;
+        this.count = supplyCounter.apply(countName(name));
+        this.sum = supplyCounter.apply(sumName(name));
+        this.buckets = new AtomicCounter[BUCKETS];
+    }
+
+    public void record(
+        long value)
+    {
+        final long recorded = Math.max(value, 0L);
+        final int bucket = bucket(recorded);
+
+        AtomicCounter counter = buckets[bucket];
+        if (counter == null)
+        {
+            counter = supplyCounter.apply(bucketName(name, bucket));
+            buckets[bucket] = counter;
+        }
+
+        counter.orderedIncrement();
+        sum.addOrdered(recorded);
+        count.orderedIncrement();
+    }
+
+    public static int bucket(
+        long value)
+    {
+        int bucket = (int) value;
+
+        if (value >= SUB_BUCKETS)
+        {
+            final int exponent = Long.SIZE - 1 - numberOfLeadingZeros(value);
+            final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & SUB_BUCKET_MASK;
+            bucket = ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+        }
+
+        return bucket;
+    }
+
+    public static long bucketLowerBound(
+        int bucket)
+    {
+        long lowerBound = bucket;
+
+        if (bucket >= SUB_BUCKETS)
+        {
+            final int exponent = (bucket >> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+            final long subBucket = bucket & SUB_BUCKET_MASK;
+            lowerBound = (SUB_BUCKETS | subBucket) << (exponent - SUB_BUCKET_BITS);
+        }
+
+        return lowerBound;
+    }
+
+    public static String bucketName(
+        String name,
+        int bucket)
+    {
+        return String.format("%s.%d", name, bucketLowerBound(bucket));
+    }
+
+    public static String countName(
+        String name)
+    {
+        return String.format("%s.count", name);
+    }
+
+    public static String sumName(
+        String name)
+    {
+        return String.format("%s.sum", name);
+    }
+}
@@ -34,6 +34,7 @@ import org.reaktivity.nukleus.function.MessagePredicate;
 import org.reaktivity.nukleus.route.RouteKind;
 import org.reaktivity.nukleus.stream.StreamFactoryBuilder;
 import org.reaktivity.reaktor.internal.conductor.Conductor;
+import org.reaktivity.reaktor.internal.layouts.GroupBudgetsLayout;
 import org.reaktivity.reaktor.internal.router.Router;
 import org.reaktivity.reaktor.internal.types.control.Role;
 import org.reaktivity.reaktor.internal.types.control.auth.ResolveFW;
@@ -44,6 +45,7 @@ public class NukleusBuilderImpl implements NukleusBuilder
     private final ReaktorConfiguration config;
     private final String name;
     private final State state;
+    private final GroupBudgetsLayout groupBudgets;
     private final Int2ObjectHashMap<CommandHandler> commandHandlersByTypeId;
     private final Map<Role, MessagePredicate> routeHandlers;
     private final Map<RouteKind, StreamFactoryBuilder> streamFactoryBuilders;
@@ -57,11 +59,13 @@ public class NukleusBuilderImpl implements NukleusBuilder
     public NukleusBuilderImpl(
         ReaktorConfiguration config,
         String name,
-        State state)
+        State state,
+        GroupBudgetsLayout groupBudgets)
     {
         this.config = config;
         this.name = name;
         this.state = state;
+        this.groupBudgets = groupBudgets;
         this.commandHandlersByTypeId = new Int2ObjectHashMap<>();
         this.routeHandlers = new EnumMap<>(Role.class);
         this.streamFactoryBuilders = new EnumMap<>(RouteKind.class);
@@ -168,7 +172,7 @@ public class NukleusBuilderImpl implements NukleusBuilder
     public Nukleus build()
     {
         Context context = new Context();
-        context.name(name).conclude(config);
+        context.name(name).groupBudgetsLayout(groupBudgets).conclude(config);
 
         final boolean timestamps = config.timestamps();
 
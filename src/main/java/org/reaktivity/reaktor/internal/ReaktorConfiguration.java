@@ -17,10 +17,12 @@ package org.reaktivity.reaktor.internal;
 
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Properties;
+import java.util.function.IntSupplier;
 
 import org.reaktivity.nukleus.Configuration;
 
@@ -42,10 +44,66 @@ public class ReaktorConfiguration extends Configuration
 
     public static final String BUFFER_SLOT_CAPACITY_PROPERTY = "reaktor.buffer.slot.capacity";
 
+    public static final String BUFFER_POOL_MAX_CAPACITY_PROPERTY = "reaktor.buffer.pool.max.capacity";
+
+    public static final String BUFFER_POOL_HIGH_WATERMARK_PROPERTY = "reaktor.buffer.pool.high.watermark";
+
+    public static final String BUFFER_POOL_LOW_WATERMARK_PROPERTY = "reaktor.buffer.pool.low.watermark";
+
+    public static final String BUFFER_POOL_QUOTA_PROPERTY = "reaktor.buffer.pool.quota";
+
+    public static final String BUFFER_POOL_TRACKING_PROPERTY = "reaktor.buffer.pool.tracking";
+
+    public static final String BUFFER_POOL_TRACKING_SAMPLE_RATE_PROPERTY = "reaktor.buffer.pool.tracking.sample.rate";
+
+    public static final String BUFFER_POOL_TRACKING_TIMEOUT_PROPERTY = "reaktor.buffer.pool.tracking.timeout";
+
+    public static final String BUFFER_POOL_METRICS_PROPERTY = "reaktor.buffer.pool.metrics";
+
+    public static final String BUFFER_POOL_MAPPED_PROPERTY = "reaktor.buffer.pool.mapped";
+
+    public static final String BUFFER_POOL_SHARED_PROPERTY = "reaktor.buffer.pool.shared";
+
+    public static final String BUFFER_POOL_MAGAZINE_CAPACITY_PROPERTY = "reaktor.buffer.pool.magazine.capacity";
+
     public static final String ROUTES_BUFFER_CAPACITY_PROPERTY_NAME = "reaktor.routes.buffer.capacity";
 
     public static final String TIMESTAMPS_PROPERTY_NAME = "reaktor.timestamps";
 
+    public static final String COUNTERS_BATCHED_PROPERTY_NAME = "reaktor.counters.batched";
+
+    public static final String COUNTERS_SINGLE_WRITER_PROPERTY_NAME = "reaktor.counters.single.writer";
+
+    public static final String COUNTERS_FREE_COOLDOWN_PROPERTY_NAME = "reaktor.counters.free.cooldown";
+
+    public static final String COUNTERS_ROUTES_PROPERTY_NAME = "reaktor.counters.routes";
+
+    public static final String COUNTERS_STRIPES_PROPERTY_NAME = "reaktor.counters.stripes";
+
+    public static final String GROUP_BUDGETS_CAPACITY_PROPERTY_NAME = "reaktor.group.budgets.capacity";
+
+    public static final String GROUP_BUDGETS_HANDLES_PROPERTY_NAME = "reaktor.group.budgets.handles";
+
+    public static final String GROUP_BUDGETS_FAIR_SHARE_PROPERTY_NAME = "reaktor.group.budgets.fair.share";
+
+    public static final String GROUP_BUDGETS_GAUGES_PROPERTY_NAME = "reaktor.group.budgets.gauges";
+
+    public static final String GROUP_BUDGETS_GAUGES_TOP_PROPERTY_NAME = "reaktor.group.budgets.gauges.top";
+
+    public static final String GROUP_BUDGETS_GAUGES_INTERVAL_PROPERTY_NAME = "reaktor.group.budgets.gauges.interval";
+
+    public static final String STREAMS_GAUGES_PROPERTY_NAME = "reaktor.streams.gauges";
+
+    public static final String STREAMS_STALL_TIMEOUT_PROPERTY_NAME = "reaktor.streams.stall.timeout";
+
+    public static final String STREAMS_WRITE_RETRIES_PROPERTY_NAME = "reaktor.streams.write.retries";
+
+    public static final String STREAMS_RECORDER_CAPACITY_PROPERTY_NAME = "reaktor.streams.recorder.capacity";
+
+    public static final String STREAMS_CAPTURE_CAPACITY_PROPERTY_NAME = "reaktor.streams.capture.capacity";
+
+    public static final String STREAMS_CAPTURE_PATTERN_PROPERTY_NAME = "reaktor.streams.capture.pattern";
+
     public static final String BACKOFF_IDLE_STRATEGY_MAX_SPINS = "reaktor.backoff.idle.strategy.max.spins";
 
     public static final String BACKOFF_IDLE_STRATEGY_MAX_YIELDS = "reaktor.backoff.idle.strategy.max.yields";
@@ -68,6 +126,8 @@ public class ReaktorConfiguration extends Configuration
 
     public static final int ROUTES_BUFFER_CAPACITY_DEFAULT = 1024 * 1024;
 
+    public static final int GROUP_BUDGETS_HANDLES_DEFAULT = 4096;
+
     private static final long BACKOFF_IDLE_STRATEGY_MAX_SPINS_DEFAULT = 64L;
 
     private static final long BACKOFF_IDLE_STRATEGY_MAX_YIELDS_DEFAULT = 64L;
@@ -78,6 +138,58 @@ public class ReaktorConfiguration extends Configuration
 
     private static final boolean TIMESTAMPS_DEFAULT = true;
 
+    private static final boolean COUNTERS_BATCHED_DEFAULT = false;
+
+    private static final boolean COUNTERS_SINGLE_WRITER_DEFAULT = false;
+
+    private static final long COUNTERS_FREE_COOLDOWN_DEFAULT = SECONDS.toMillis(1L);
+
+    private static final boolean COUNTERS_ROUTES_DEFAULT = false;
+
+    private static final int COUNTERS_STRIPES_DEFAULT = 0;
+
+    private static final int GROUP_BUDGETS_CAPACITY_DEFAULT = 0;
+
+    private static final boolean GROUP_BUDGETS_FAIR_SHARE_DEFAULT = false;
+
+    private static final boolean GROUP_BUDGETS_GAUGES_DEFAULT = false;
+
+    private static final int GROUP_BUDGETS_GAUGES_TOP_DEFAULT = 0;
+
+    private static final long GROUP_BUDGETS_GAUGES_INTERVAL_DEFAULT = SECONDS.toMillis(1L);
+
+    private static final int BUFFER_POOL_HIGH_WATERMARK_DEFAULT = 90;
+
+    private static final int BUFFER_POOL_LOW_WATERMARK_DEFAULT = 50;
+
+    private static final int BUFFER_POOL_QUOTA_DEFAULT = 0;
+
+    private static final boolean BUFFER_POOL_TRACKING_DEFAULT = false;
+
+    private static final int BUFFER_POOL_TRACKING_SAMPLE_RATE_DEFAULT = 0;
+
+    private static final long BUFFER_POOL_TRACKING_TIMEOUT_DEFAULT = SECONDS.toMillis(60L);
+
+    private static final boolean BUFFER_POOL_METRICS_DEFAULT = false;
+
+    private static final boolean BUFFER_POOL_MAPPED_DEFAULT = false;
+
+    private static final boolean BUFFER_POOL_SHARED_DEFAULT = false;
+
+    private static final int BUFFER_POOL_MAGAZINE_CAPACITY_DEFAULT = 64;
+
+    private static final boolean STREAMS_GAUGES_DEFAULT = false;
+
+    private static final long STREAMS_STALL_TIMEOUT_DEFAULT = 0L;
+
+    private static final int STREAMS_WRITE_RETRIES_DEFAULT = 0;
+
+    private static final int STREAMS_RECORDER_CAPACITY_DEFAULT = 0;
+
+    private static final int STREAMS_CAPTURE_CAPACITY_DEFAULT = 0;
+
+    private static final String STREAMS_CAPTURE_PATTERN_DEFAULT = ".*";
+
     public ReaktorConfiguration(
         Configuration config)
     {
@@ -113,6 +225,64 @@ public class ReaktorConfiguration extends Configuration
         return getInteger(BUFFER_SLOT_CAPACITY_PROPERTY, BUFFER_SLOT_CAPACITY_DEFAULT);
     }
 
+    public int bufferPoolMaxCapacity()
+    {
+        return getInteger(BUFFER_POOL_MAX_CAPACITY_PROPERTY, this::bufferPoolCapacity);
+    }
+
+    public int bufferPoolHighWatermark()
+    {
+        return getInteger(BUFFER_POOL_HIGH_WATERMARK_PROPERTY, BUFFER_POOL_HIGH_WATERMARK_DEFAULT);
+    }
+
+    public int bufferPoolLowWatermark()
+    {
+        return getInteger(BUFFER_POOL_LOW_WATERMARK_PROPERTY, BUFFER_POOL_LOW_WATERMARK_DEFAULT);
+    }
+
+    public int bufferPoolQuota(
+        String nukleus)
+    {
+        final String nukleusPropertyName = String.format("%s.%s", BUFFER_POOL_QUOTA_PROPERTY, nukleus);
+
+        return getInteger(nukleusPropertyName, () -> getInteger(BUFFER_POOL_QUOTA_PROPERTY, BUFFER_POOL_QUOTA_DEFAULT));
+    }
+
+    public boolean bufferPoolTracking()
+    {
+        return getBoolean(BUFFER_POOL_TRACKING_PROPERTY, BUFFER_POOL_TRACKING_DEFAULT);
+    }
+
+    public int bufferPoolTrackingSampleRate()
+    {
+        return getInteger(BUFFER_POOL_TRACKING_SAMPLE_RATE_PROPERTY, BUFFER_POOL_TRACKING_SAMPLE_RATE_DEFAULT);
+    }
+
+    public long bufferPoolTrackingTimeout()
+    {
+        return getLong(BUFFER_POOL_TRACKING_TIMEOUT_PROPERTY, BUFFER_POOL_TRACKING_TIMEOUT_DEFAULT);
+    }
+
+    public boolean bufferPoolMetrics()
+    {
+        return getBoolean(BUFFER_POOL_METRICS_PROPERTY, BUFFER_POOL_METRICS_DEFAULT);
+    }
+
+    public boolean bufferPoolMapped()
+    {
+        return getBoolean(BUFFER_POOL_MAPPED_PROPERTY, BUFFER_POOL_MAPPED_DEFAULT);
+    }
+
+    public boolean bufferPoolShared()
+    {
+        return getBoolean(BUFFER_POOL_SHARED_PROPERTY, BUFFER_POOL_SHARED_DEFAULT);
+    }
+
+    public int bufferPoolMagazineCapacity()
+    {
+        return getInteger(BUFFER_POOL_MAGAZINE_CAPACITY_PROPERTY, BUFFER_POOL_MAGAZINE_CAPACITY_DEFAULT);
+    }
+
     @Override
     public int maximumStreamsCount()
     {
@@ -131,6 +301,20 @@ public class ReaktorConfiguration extends Configuration
         return getInteger(THROTTLE_BUFFER_CAPACITY_PROPERTY_NAME, THROTTLE_BUFFER_CAPACITY_DEFAULT);
     }
 
+    public int streamsBufferCapacity(
+        String nukleus,
+        String source)
+    {
+        return getInteger(STREAMS_BUFFER_CAPACITY_PROPERTY_NAME, nukleus, source, this::streamsBufferCapacity);
+    }
+
+    public int throttleBufferCapacity(
+        String nukleus,
+        String source)
+    {
+        return getInteger(THROTTLE_BUFFER_CAPACITY_PROPERTY_NAME, nukleus, source, this::throttleBufferCapacity);
+    }
+
     @Override
     public int commandBufferCapacity()
     {
@@ -165,6 +349,103 @@ public class ReaktorConfiguration extends Configuration
         return getBoolean(TIMESTAMPS_PROPERTY_NAME, TIMESTAMPS_DEFAULT);
     }
 
+    public boolean countersBatched()
+    {
+        return getBoolean(COUNTERS_BATCHED_PROPERTY_NAME, COUNTERS_BATCHED_DEFAULT);
+    }
+
+    public boolean countersSingleWriter()
+    {
+        return getBoolean(COUNTERS_SINGLE_WRITER_PROPERTY_NAME, COUNTERS_SINGLE_WRITER_DEFAULT);
+    }
+
+    public long countersFreeCooldown()
+    {
+        return getLong(COUNTERS_FREE_COOLDOWN_PROPERTY_NAME, COUNTERS_FREE_COOLDOWN_DEFAULT);
+    }
+
+    public boolean countersRoutes()
+    {
+        return getBoolean(COUNTERS_ROUTES_PROPERTY_NAME, COUNTERS_ROUTES_DEFAULT);
+    }
+
+    public int countersStripes()
+    {
+        return getInteger(COUNTERS_STRIPES_PROPERTY_NAME, COUNTERS_STRIPES_DEFAULT);
+    }
+
+    public int groupBudgetsCapacity()
+    {
+        return getInteger(GROUP_BUDGETS_CAPACITY_PROPERTY_NAME, GROUP_BUDGETS_CAPACITY_DEFAULT);
+    }
+
+    public int groupBudgetsHandles()
+    {
+        return getInteger(GROUP_BUDGETS_HANDLES_PROPERTY_NAME, GROUP_BUDGETS_HANDLES_DEFAULT);
+    }
+
+    public boolean groupBudgetsFairShare()
+    {
+        return getBoolean(GROUP_BUDGETS_FAIR_SHARE_PROPERTY_NAME, GROUP_BUDGETS_FAIR_SHARE_DEFAULT);
+    }
+
+    public boolean groupBudgetsGauges()
+    {
+        return getBoolean(GROUP_BUDGETS_GAUGES_PROPERTY_NAME, GROUP_BUDGETS_GAUGES_DEFAULT);
+    }
+
+    public int groupBudgetsGaugesTop()
+    {
+        return getInteger(GROUP_BUDGETS_GAUGES_TOP_PROPERTY_NAME, GROUP_BUDGETS_GAUGES_TOP_DEFAULT);
+    }
+
+    public long groupBudgetsGaugesInterval()
+    {
+        return getLong(GROUP_BUDGETS_GAUGES_INTERVAL_PROPERTY_NAME, GROUP_BUDGETS_GAUGES_INTERVAL_DEFAULT);
+    }
+
+    public boolean streamsGauges()
+    {
+        return getBoolean(STREAMS_GAUGES_PROPERTY_NAME, STREAMS_GAUGES_DEFAULT);
+    }
+
+    public long streamsStallTimeout()
+    {
+        return getLong(STREAMS_STALL_TIMEOUT_PROPERTY_NAME, STREAMS_STALL_TIMEOUT_DEFAULT);
+    }
+
+    public int streamsWriteRetries()
+    {
+        return getInteger(STREAMS_WRITE_RETRIES_PROPERTY_NAME, STREAMS_WRITE_RETRIES_DEFAULT);
+    }
+
+    public int streamsRecorderCapacity()
+    {
+        return getInteger(STREAMS_RECORDER_CAPACITY_PROPERTY_NAME, STREAMS_RECORDER_CAPACITY_DEFAULT);
+    }
+
+    public int streamsCaptureCapacity()
+    {
+        return getInteger(STREAMS_CAPTURE_CAPACITY_PROPERTY_NAME, STREAMS_CAPTURE_CAPACITY_DEFAULT);
+    }
+
+    public String streamsCapturePattern()
+    {
+        return getProperty(STREAMS_CAPTURE_PATTERN_PROPERTY_NAME, STREAMS_CAPTURE_PATTERN_DEFAULT);
+    }
+
+    private int getInteger(
+        String propertyName,
+        String nukleus,
+        String source,
+        IntSupplier defaultValue)
+    {
+        final String nukleusPropertyName = String.format("%s.%s", propertyName, nukleus);
+        final String sourcePropertyName = String.format("%s.%s", nukleusPropertyName, source);
+
+        return getInteger(sourcePropertyName, () -> getInteger(nukleusPropertyName, defaultValue));
+    }
+
     private int calculateBufferPoolCapacity()
     {
         return bufferSlotCapacity() * 64;
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal;
+
+import org.agrona.concurrent.status.AtomicCounter;
+
+/**
+ * A counter whose lifetime is bounded by its owner, see {@link Counters#scopedCounter(String)}.
+ * Once freed, updates are ignored so a stale holder can never write into a reused counter slot.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class ScopedCounter
+{
+    private final AtomicCounter counter;
+
+    private boolean freed;
+
+    ScopedCounter(
+        AtomicCounter counter)
+    {
+        this.counter = counter;
+    }
+
+    public long increment()
+    {
+        return freed ? 0L : counter.orderedIncrement() + 1;
+    }
+
+    public long decrement()
+    {
+        if (freed)
+        {
+            return 0L;
+        }
+
+        final long value = counter.get() - 1;
+        counter.setOrdered(value);
+        return value;
+    }
+
+    public long get()
+    {
+        return freed ? 0L : counter.get();
+    }
+
+    AtomicCounter free()
+    {
+        freed = true;
+        return counter;
+    }
+}
@@ -16,15 +16,25 @@
 package org.reaktivity.reaktor.internal;
 
 import static java.lang.Integer.numberOfTrailingZeros;
+import static java.lang.String.format;
 import static org.agrona.BitUtil.findNextPositivePowerOfTwo;
+import static org.agrona.IoUtil.createEmptyFile;
+import static org.agrona.IoUtil.mapExistingFile;
+import static org.agrona.IoUtil.unmap;
 
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
+import org.agrona.CloseHelper;
 import org.reaktivity.nukleus.Controller;
 import org.reaktivity.nukleus.Nukleus;
 import org.reaktivity.nukleus.buffer.BufferPool;
 import org.reaktivity.reaktor.internal.buffer.DefaultBufferPool;
+import org.reaktivity.reaktor.internal.buffer.ElasticBufferPool;
 
 public final class StateImpl implements State, Comparable<StateImpl>
 {
@@ -41,12 +51,8 @@ public final class StateImpl implements State, Comparable<StateImpl>
     public StateImpl(
         int index,
         int count,
-        ReaktorConfiguration config)
+        BufferPool bufferPool)
     {
-        final int bufferPoolCapacity = config.bufferPoolCapacity();
-        final int bufferSlotCapacity = config.bufferSlotCapacity();
-        final BufferPool bufferPool = new DefaultBufferPool(bufferPoolCapacity, bufferSlotCapacity);
-
         final int reserved = numberOfTrailingZeros(findNextPositivePowerOfTwo(count));
         final int bits = Long.SIZE - reserved;
         final long initial = ((long) index) << bits;
@@ -92,6 +98,42 @@ public final class StateImpl implements State, Comparable<StateImpl>
         return groupId;
     }
 
+    public static BufferPool newBufferPool(
+        int index,
+        ReaktorConfiguration config,
+        Consumer<AutoCloseable> resources)
+    {
+        final int bufferPoolCapacity = config.bufferPoolCapacity();
+        final int bufferSlotCapacity = config.bufferSlotCapacity();
+        final int bufferPoolMaxCapacity = config.bufferPoolMaxCapacity();
+
+        BufferPool bufferPool;
+
+        if (bufferPoolMaxCapacity > bufferPoolCapacity)
+        {
+            bufferPool = new ElasticBufferPool(bufferPoolCapacity, bufferPoolMaxCapacity, bufferSlotCapacity,
+                    config.bufferPoolHighWatermark(), config.bufferPoolLowWatermark());
+        }
+        else if (config.bufferPoolMapped())
+        {
+            final File buffers = config.directory().resolve(format("buffers/core%d", index)).toFile();
+            CloseHelper.close(createEmptyFile(buffers, bufferPoolCapacity));
+            final MappedByteBuffer slab = mapExistingFile(buffers, "buffers", 0, bufferPoolCapacity);
+            resources.accept(() ->
+            {
+                unmap(slab);
+                Files.deleteIfExists(buffers.toPath());
+            });
+            bufferPool = new DefaultBufferPool(slab, bufferSlotCapacity);
+        }
+        else
+        {
+            bufferPool = new DefaultBufferPool(bufferPoolCapacity, bufferSlotCapacity);
+        }
+
+        return bufferPool;
+    }
+
     @Override
     public int hashCode()
     {
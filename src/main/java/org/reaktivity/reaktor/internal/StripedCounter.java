@@ -0,0 +1,81 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal;
+
+import org.agrona.concurrent.status.AtomicCounter;
+
+/**
+ * A counter split into equally labelled stripes, each in its own cache line of the counters values buffer.
+ * Writers update the stripe picked by their thread id, so threads sharing a hot counter do not contend on
+ * one cache line, while readers sum every stripe.
+ */
+public final class StripedCounter
+{
+    private final AtomicCounter[] stripes;
+    private final int mask;
+
+    StripedCounter(
+        AtomicCounter[] stripes)
+    {
+        this.stripes = stripes;
+        this.mask = stripes.length - 1;
+    }
+
+    public long increment()
+    {
+        return stripe().increment();
+    }
+
+    public long orderedIncrement()
+    {
+        return stripe().orderedIncrement();
+    }
+
+    public void add(
+        long increment)
+    {
+        stripe().add(increment);
+    }
+
+    public void addOrdered(
+        long increment)
+    {
+        stripe().addOrdered(increment);
+    }
+
+    public long get()
+    {
+        long value = 0L;
+        for (int i = 0; i < stripes.length; i++)
+        {
+            value += stripes[i].get();
+        }
+        return value;
+    }
+
+    void close()
+    {
+        for (int i = 0; i < stripes.length; i++)
+        {
+            stripes[i].close();
+        }
+    }
+
+    private AtomicCounter stripe()
+    {
+        return stripes[(int) Thread.currentThread().getId() & mask];
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.buffer;
+
+import static java.lang.Long.numberOfLeadingZeros;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.Arrays;
+
+/**
+ * Occupancy and time-in-slot metrics of the buffer slots acquired by one nukleus. Slot hold times are recorded in a histogram of
+ * {@link #BUCKETS} buckets, where bucket {@code i} counts slots held for less than {@code 4^i} microseconds,
+ * and the last bucket also counts longer hold times. Acquire times are kept in an array indexed by slot, sized
+ * for the largest number of slots the pool can grow to.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class BufferPoolMetrics
+{
+    public static final int BUCKETS = 16;
+
+    private static final long NOT_ACQUIRED = Long.MIN_VALUE;
+
+    private final long[] acquiredAt;
+    private final long[] heldCounts;
+
+    private int acquiredSlots;
+    private int peakAcquiredSlots;
+    private long acquireFailures;
+    private long version;
+
+    public BufferPoolMetrics(
+        int slots)
+    {
+        this.acquiredAt = new long[slots];
+        Arrays.fill(acquiredAt, NOT_ACQUIRED);
+        this.heldCounts = new long[BUCKETS];
+    }
+
+    public void acquired(
+        int slot)
+    {
+        acquiredAt[slot] = System.nanoTime();
+        acquiredSlots++;
+        peakAcquiredSlots = Math.max(peakAcquiredSlots, acquiredSlots);
+        version++;
+    }
+
+    public void released(
+        int slot)
+    {
+        final long acquiredAt = this.acquiredAt[slot];
+        if (acquiredAt != NOT_ACQUIRED)
+        {
+            this.acquiredAt[slot] = NOT_ACQUIRED;
+            final long heldMicros = NANOSECONDS.toMicros(System.nanoTime() - acquiredAt);
+            heldCounts[bucket(heldMicros)]++;
+            acquiredSlots--;
+            version++;
+        }
+    }
+
+    public void failed()
+    {
+        acquireFailures++;
+        version++;
+    }
+
+    public long version()
+    {
+        return version;
+    }
+
+    public int peakAcquiredSlots()
+    {
+        return peakAcquiredSlots;
+    }
+
+    public long acquireFailures()
+    {
+        return acquireFailures;
+    }
+
+    public long heldCount(
+        int bucket)
+    {
+        return heldCounts[bucket];
+    }
+
+    public static long bucketLimitMicros(
+        int bucket)
+    {
+        return 1L << (bucket << 1);
+    }
+
+    static int bucket(
+        long heldMicros)
+    {
+        final int bits = Long.SIZE - numberOfLeadingZeros(heldMicros);
+        return Math.min((bits + 1) >> 1, BUCKETS - 1);
+    }
+}
@@ -16,6 +16,7 @@
 package org.reaktivity.reaktor.internal.buffer;
 
 import java.nio.ByteBuffer;
+import java.util.function.IntConsumer;
 import java.util.function.LongSupplier;
 
 import org.agrona.MutableDirectBuffer;
@@ -26,15 +27,42 @@ public final class CountingBufferPool implements BufferPool
     private final BufferPool bufferPool;
     private final LongSupplier acquires;
     private final LongSupplier releases;
+    private final BufferPoolMetrics metrics;
+    private final IntConsumer onAcquired;
+    private final IntConsumer onReleased;
+    private final Runnable onAcquireFailed;
 
     public CountingBufferPool(
         BufferPool bufferPool,
         LongSupplier acquires,
         LongSupplier releases)
+    {
+        this(bufferPool, acquires, releases, null);
+    }
+
+    public CountingBufferPool(
+        BufferPool bufferPool,
+        LongSupplier acquires,
+        LongSupplier releases,
+        BufferPoolMetrics metrics)
     {
         this.bufferPool = bufferPool;
         this.acquires = acquires;
         this.releases = releases;
+        this.metrics = metrics;
+
+        if (metrics != null)
+        {
+            this.onAcquired = metrics::acquired;
+            this.onReleased = metrics::released;
+            this.onAcquireFailed = metrics::failed;
+        }
+        else
+        {
+            this.onAcquired = s -> {};
+            this.onReleased = s -> {};
+            this.onAcquireFailed = () -> {};
+        }
     }
 
     @Override
@@ -51,6 +79,11 @@ public final class CountingBufferPool implements BufferPool
         if (slot != NO_SLOT)
         {
             acquires.getAsLong();
+            onAcquired.accept(slot);
+        }
+        else
+        {
+            onAcquireFailed.run();
         }
 
         return slot;
@@ -86,13 +119,14 @@ public final class CountingBufferPool implements BufferPool
         if (slot != NO_SLOT)
         {
             releases.getAsLong();
+            onReleased.accept(slot);
         }
     }
 
     @Override
     public BufferPool duplicate()
     {
-        return new CountingBufferPool(bufferPool.duplicate(), acquires, releases);
+        return new CountingBufferPool(bufferPool.duplicate(), acquires, releases, metrics);
     }
 
     @Override
@@ -21,14 +21,14 @@ import java.nio.ByteBuffer;
 import java.util.BitSet;
 
 import org.agrona.MutableDirectBuffer;
-import org.agrona.collections.Hashing;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.reaktivity.nukleus.buffer.BufferPool;
 
 /**
  * A chunk of shared memory for temporary storage of data. This is logically segmented into a set of
  * slots of equal size. Methods are provided for acquiring a slot, getting a slabBuffer that can be used
- * to store data in it, and releasing the slot once it is no longer needed.
+ * to store data in it, and releasing the slot once it is no longer needed. Free slots are kept on a stack
+ * so that acquire and release take constant time regardless of occupancy, most recently released first.
  * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
  */
 public class DefaultBufferPool implements BufferPool
@@ -37,14 +37,21 @@ public class DefaultBufferPool implements BufferPool
 
     private final int slotCapacity;
     private final int bitsPerSlot;
-    private final int mask;
+    private final int totalSlots;
     private final MutableDirectBuffer slabBuffer;
     private final ByteBuffer slotByteBuffer;
     private final BitSet used;
+    private final int[] freeSlots;
     private final int[] availableSlots;
 
     public DefaultBufferPool(int totalCapacity, int slotCapacity)
     {
+        this(ByteBuffer.allocateDirect(totalCapacity), slotCapacity);
+    }
+
+    public DefaultBufferPool(ByteBuffer slab, int slotCapacity)
+    {
+        final int totalCapacity = slab.capacity();
         if (!isZeroOrPowerOfTwo(totalCapacity))
         {
             throw new IllegalArgumentException("totalCapacity is not a power of 2");
@@ -60,16 +67,21 @@ public class DefaultBufferPool implements BufferPool
         this.slotCapacity = slotCapacity;
         this.bitsPerSlot = Integer.numberOfTrailingZeros(slotCapacity);
         int totalSlots = slotCapacity != 0 ? totalCapacity / slotCapacity : 0;
-        this.mask = totalSlots - 1;
-        this.slabBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(totalCapacity));
+        this.totalSlots = totalSlots;
+        this.slabBuffer = new UnsafeBuffer(slab);
         this.slotByteBuffer = slabBuffer.byteBuffer().duplicate();
         this.used = new BitSet(totalSlots);
+        this.freeSlots = new int[totalSlots];
+        for (int slot = 0; slot < totalSlots; slot++)
+        {
+            freeSlots[totalSlots - 1 - slot] = slot;
+        }
         this.availableSlots = new int[] { totalSlots };
     }
 
     public int acquiredSlots()
     {
-        return used.cardinality();
+        return totalSlots - availableSlots[0];
     }
 
     @Override
@@ -85,13 +97,9 @@ public class DefaultBufferPool implements BufferPool
         {
             return NO_SLOT;
         }
-        int slot = Hashing.hash(streamId, mask);
-        while (used.get(slot))
-        {
-            slot = ++slot & mask;
-        }
+        final int slot = freeSlots[--availableSlots[0]];
+        assert !used.get(slot);
         used.set(slot);
-        availableSlots[0]--;
 
         return slot;
     }
@@ -134,7 +142,7 @@ public class DefaultBufferPool implements BufferPool
     {
         assert used.get(slot);
         used.clear(slot);
-        availableSlots[0]++;
+        freeSlots[availableSlots[0]++] = slot;
     }
 
     @Override
@@ -148,10 +156,11 @@ public class DefaultBufferPool implements BufferPool
     {
         this.availableSlots = that.availableSlots;
         this.bitsPerSlot = that.bitsPerSlot;
-        this.mask = that.mask;
+        this.totalSlots = that.totalSlots;
         this.slabBuffer = that.slabBuffer;
         this.slotCapacity = that.slotCapacity;
         this.used = that.used;
+        this.freeSlots = that.freeSlots;
         this.slotByteBuffer = that.slotByteBuffer.duplicate();
     }
 
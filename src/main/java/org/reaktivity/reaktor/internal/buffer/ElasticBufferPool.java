@@ -0,0 +1,287 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.buffer;
+
+import static org.agrona.BitUtil.isPowerOfTwo;
+import static org.agrona.IoUtil.unmap;
+
+import java.nio.ByteBuffer;
+
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.reaktivity.nukleus.buffer.BufferPool;
+
+/**
+ * A buffer pool that starts with one slab of slots and adds further slabs of the same capacity, up to a maximum
+ * capacity, once occupancy reaches a high watermark. Extra slabs are returned once they are no longer used and
+ * occupancy of the remaining slabs falls below a low watermark. Watermarks are percentages of the current capacity.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class ElasticBufferPool implements BufferPool
+{
+    private static final int SLAB_SHIFT = 24;
+    private static final int INDEX_MASK = (1 << SLAB_SHIFT) - 1;
+
+    private final MutableDirectBuffer slotBuffer = new UnsafeBuffer(new byte[0]);
+
+    private final Slabs slabs;
+    private final ByteBuffer[] slabByteBuffers;
+    private final ByteBuffer[] slotByteBuffers;
+
+    public ElasticBufferPool(
+        int slabCapacity,
+        int maxCapacity,
+        int slotCapacity,
+        int highWatermark,
+        int lowWatermark)
+    {
+        if (!isPowerOfTwo(slabCapacity))
+        {
+            throw new IllegalArgumentException("slabCapacity is not a power of 2");
+        }
+        if (!isPowerOfTwo(slotCapacity))
+        {
+            throw new IllegalArgumentException("slotCapacity is not a power of 2");
+        }
+        if (slotCapacity > slabCapacity)
+        {
+            throw new IllegalArgumentException("slotCapacity exceeds slabCapacity");
+        }
+        if (maxCapacity < slabCapacity)
+        {
+            throw new IllegalArgumentException("maxCapacity is less than slabCapacity");
+        }
+        if (lowWatermark > highWatermark)
+        {
+            throw new IllegalArgumentException("lowWatermark exceeds highWatermark");
+        }
+
+        this.slabs = new Slabs(slabCapacity, maxCapacity / slabCapacity, slotCapacity, highWatermark, lowWatermark);
+        this.slabByteBuffers = new ByteBuffer[slabs.buffers.length];
+        this.slotByteBuffers = new ByteBuffer[slabs.buffers.length];
+    }
+
+    public long footprint()
+    {
+        return (long) slabs.count * slabs.slabCapacity;
+    }
+
+    @Override
+    public int slotCapacity()
+    {
+        return slabs.slotCapacity;
+    }
+
+    @Override
+    public int acquire(
+        long streamId)
+    {
+        final Slabs slabs = this.slabs;
+
+        int slab = slabs.available();
+        if (slab == -1)
+        {
+            slab = slabs.grow();
+            if (slab == -1)
+            {
+                return NO_SLOT;
+            }
+        }
+
+        final int slot = (slab << SLAB_SHIFT) | slabs.freeSlots[slab][--slabs.availableSlots[slab]];
+        slabs.acquiredSlots++;
+
+        if (slabs.acquiredSlots * 100L >= (long) slabs.highWatermark * slabs.count * slabs.slotsPerSlab)
+        {
+            slabs.grow();
+        }
+
+        return slot;
+    }
+
+    @Override
+    public MutableDirectBuffer buffer(
+        int slot)
+    {
+        return buffer(slot, 0);
+    }
+
+    @Override
+    public ByteBuffer byteBuffer(
+        int slot)
+    {
+        final int slab = slot >>> SLAB_SHIFT;
+        final ByteBuffer slabByteBuffer = slabs.buffers[slab];
+        assert slabByteBuffer != null;
+
+        if (slabByteBuffers[slab] != slabByteBuffer)
+        {
+            slabByteBuffers[slab] = slabByteBuffer;
+            slotByteBuffers[slab] = slabByteBuffer.duplicate();
+        }
+
+        final int slotOffset = (slot & INDEX_MASK) << slabs.bitsPerSlot;
+        final ByteBuffer slotByteBuffer = slotByteBuffers[slab];
+        slotByteBuffer.clear();
+        slotByteBuffer.position(slotOffset);
+        slotByteBuffer.limit(slotOffset + slabs.slotCapacity);
+        return slotByteBuffer;
+    }
+
+    @Override
+    public MutableDirectBuffer buffer(
+        int slot,
+        int offset)
+    {
+        final int slab = slot >>> SLAB_SHIFT;
+        assert slabs.buffers[slab] != null;
+        final long slotAddressOffset = slabs.addresses[slab] + ((long) (slot & INDEX_MASK) << slabs.bitsPerSlot);
+        slotBuffer.wrap(slotAddressOffset + offset, slabs.slotCapacity);
+        return slotBuffer;
+    }
+
+    @Override
+    public void release(
+        int slot)
+    {
+        final Slabs slabs = this.slabs;
+        final int slab = slot >>> SLAB_SHIFT;
+
+        slabs.freeSlots[slab][slabs.availableSlots[slab]++] = slot & INDEX_MASK;
+        slabs.acquiredSlots--;
+
+        if (slabs.count > 1 &&
+            slabs.acquiredSlots * 100L < (long) slabs.lowWatermark * (slabs.count - 1) * slabs.slotsPerSlab)
+        {
+            slabs.shrink();
+        }
+    }
+
+    @Override
+    public BufferPool duplicate()
+    {
+        return new ElasticBufferPool(this);
+    }
+
+    @Override
+    public int acquiredSlots()
+    {
+        return slabs.acquiredSlots;
+    }
+
+    private ElasticBufferPool(
+        ElasticBufferPool that)
+    {
+        this.slabs = that.slabs;
+        this.slabByteBuffers = new ByteBuffer[slabs.buffers.length];
+        this.slotByteBuffers = new ByteBuffer[slabs.buffers.length];
+    }
+
+    private static final class Slabs
+    {
+        private final int slabCapacity;
+        private final int slotCapacity;
+        private final int bitsPerSlot;
+        private final int slotsPerSlab;
+        private final int highWatermark;
+        private final int lowWatermark;
+        private final ByteBuffer[] buffers;
+        private final long[] addresses;
+        private final int[][] freeSlots;
+        private final int[] availableSlots;
+
+        private int count;
+        private int acquiredSlots;
+
+        private Slabs(
+            int slabCapacity,
+            int maxSlabs,
+            int slotCapacity,
+            int highWatermark,
+            int lowWatermark)
+        {
+            this.slabCapacity = slabCapacity;
+            this.slotCapacity = slotCapacity;
+            this.bitsPerSlot = Integer.numberOfTrailingZeros(slotCapacity);
+            this.slotsPerSlab = slabCapacity / slotCapacity;
+            this.highWatermark = highWatermark;
+            this.lowWatermark = lowWatermark;
+            this.buffers = new ByteBuffer[maxSlabs];
+            this.addresses = new long[maxSlabs];
+            this.freeSlots = new int[maxSlabs][];
+            this.availableSlots = new int[maxSlabs];
+
+            grow();
+        }
+
+        private int available()
+        {
+            for (int slab = 0; slab < buffers.length; slab++)
+            {
+                if (availableSlots[slab] != 0)
+                {
+                    return slab;
+                }
+            }
+
+            return -1;
+        }
+
+        private int grow()
+        {
+            for (int slab = 0; slab < buffers.length; slab++)
+            {
+                if (buffers[slab] == null)
+                {
+                    final ByteBuffer buffer = ByteBuffer.allocateDirect(slabCapacity);
+                    final int[] slots = freeSlots[slab] != null ? freeSlots[slab] : new int[slotsPerSlab];
+                    for (int slot = 0; slot < slotsPerSlab; slot++)
+                    {
+                        slots[slotsPerSlab - 1 - slot] = slot;
+                    }
+
+                    buffers[slab] = buffer;
+                    addresses[slab] = new UnsafeBuffer(buffer).addressOffset();
+                    freeSlots[slab] = slots;
+                    availableSlots[slab] = slotsPerSlab;
+                    count++;
+
+                    return slab;
+                }
+            }
+
+            return -1;
+        }
+
+        private void shrink()
+        {
+            for (int slab = buffers.length - 1; slab > 0; slab--)
+            {
+                final ByteBuffer buffer = buffers[slab];
+                if (buffer != null && availableSlots[slab] == slotsPerSlab)
+                {
+                    buffers[slab] = null;
+                    addresses[slab] = 0L;
+                    availableSlots[slab] = 0;
+                    count--;
+
+                    unmap(buffer);
+                    break;
+                }
+            }
+        }
+    }
+}
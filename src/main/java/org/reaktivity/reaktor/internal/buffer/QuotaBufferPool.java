@@ -0,0 +1,105 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongSupplier;
+
+import org.agrona.MutableDirectBuffer;
+import org.reaktivity.nukleus.buffer.BufferPool;
+
+public final class QuotaBufferPool implements BufferPool
+{
+    private final BufferPool bufferPool;
+    private final LongSupplier acquiredSlots;
+    private final int quota;
+    private final Runnable denials;
+
+    public QuotaBufferPool(
+        BufferPool bufferPool,
+        LongSupplier acquiredSlots,
+        int quota,
+        Runnable denials)
+    {
+        this.bufferPool = bufferPool;
+        this.acquiredSlots = acquiredSlots;
+        this.quota = quota;
+        this.denials = denials;
+    }
+
+    @Override
+    public int slotCapacity()
+    {
+        return bufferPool.slotCapacity();
+    }
+
+    @Override
+    public int acquire(long streamId)
+    {
+        int slot = NO_SLOT;
+
+        if (acquiredSlots.getAsLong() < quota)
+        {
+            slot = bufferPool.acquire(streamId);
+        }
+        else
+        {
+            denials.run();
+        }
+
+        return slot;
+    }
+
+    @Override
+    public MutableDirectBuffer buffer(
+        int slot)
+    {
+        return bufferPool.buffer(slot);
+    }
+
+    @Override
+    public ByteBuffer byteBuffer(
+        int slot)
+    {
+        return bufferPool.byteBuffer(slot);
+    }
+
+    @Override
+    public MutableDirectBuffer buffer(
+        int slot,
+        int offset)
+    {
+        return bufferPool.buffer(slot, offset);
+    }
+
+    @Override
+    public void release(int slot)
+    {
+        bufferPool.release(slot);
+    }
+
+    @Override
+    public BufferPool duplicate()
+    {
+        return new QuotaBufferPool(bufferPool.duplicate(), acquiredSlots, quota, denials);
+    }
+
+    @Override
+    public int acquiredSlots()
+    {
+        return bufferPool.acquiredSlots();
+    }
+}
@@ -0,0 +1,355 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.buffer;
+
+import static org.agrona.BitUtil.isPowerOfTwo;
+
+import java.nio.ByteBuffer;
+
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.ManyToManyConcurrentArrayQueue;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.reaktivity.nukleus.buffer.BufferPool;
+
+/**
+ * A chunk of shared memory segmented into slots of equal size, shared by all cores. Free slots are kept in
+ * magazines of fixed size held by a lock-free depot, so each core can acquire and release slots from its own
+ * pair of magazines, only exchanging full and empty magazines with the depot when both are exhausted.
+ * All magazines are allocated up front, two per core and enough for every slot besides, so exchanging them
+ * never allocates and the depot always has room for a magazine handed back.
+ * <p>
+ * A busy core may hold up to {@code 2 * magazineCapacity - 1} free slots in its own magazines that other cores
+ * cannot acquire. Magazines are capped at a quarter of each core's share of the slots to bound this, and a core
+ * hands its full magazines back to the depot whenever it becomes idle.
+ * <b>Each instance of this class may be used by multiple threads, each core pool by one and only one thread.</b>
+ */
+public final class SharedBufferPool
+{
+    private final int slotCapacity;
+    private final int bitsPerSlot;
+    private final int magazineCapacity;
+    private final MutableDirectBuffer slabBuffer;
+    private final ManyToManyConcurrentArrayQueue<Magazine> fullMagazines;
+    private final ManyToManyConcurrentArrayQueue<Magazine> emptyMagazines;
+
+    public SharedBufferPool(
+        int totalCapacity,
+        int slotCapacity,
+        int magazineCapacity,
+        int cores)
+    {
+        if (!isPowerOfTwo(totalCapacity))
+        {
+            throw new IllegalArgumentException("totalCapacity is not a power of 2");
+        }
+        if (!isPowerOfTwo(slotCapacity))
+        {
+            throw new IllegalArgumentException("slotCapacity is not a power of 2");
+        }
+        if (!isPowerOfTwo(magazineCapacity))
+        {
+            throw new IllegalArgumentException("magazineCapacity is not a power of 2");
+        }
+        if (slotCapacity > totalCapacity)
+        {
+            throw new IllegalArgumentException("slotCapacity exceeds totalCapacity");
+        }
+
+        final int totalSlots = totalCapacity / slotCapacity;
+        final int maxMagazineCapacity = Integer.highestOneBit(totalSlots / (cores * 4));
+        if (maxMagazineCapacity == 0)
+        {
+            throw new IllegalArgumentException("totalCapacity has fewer than 4 slots per core");
+        }
+
+        this.slotCapacity = slotCapacity;
+        this.bitsPerSlot = Integer.numberOfTrailingZeros(slotCapacity);
+        this.magazineCapacity = Math.min(magazineCapacity, maxMagazineCapacity);
+        this.slabBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(totalCapacity));
+
+        final int magazines = totalSlots / this.magazineCapacity + 2 * cores;
+        this.fullMagazines = new ManyToManyConcurrentArrayQueue<>(magazines);
+        this.emptyMagazines = new ManyToManyConcurrentArrayQueue<>(magazines);
+
+        for (int slot = 0; slot < totalSlots; slot += this.magazineCapacity)
+        {
+            final Magazine magazine = new Magazine(this.magazineCapacity);
+            for (int i = this.magazineCapacity - 1; i >= 0; i--)
+            {
+                magazine.push(slot + i);
+            }
+            offer(fullMagazines, magazine);
+        }
+
+        for (int magazine = 0; magazine < 2 * cores; magazine++)
+        {
+            offer(emptyMagazines, new Magazine(this.magazineCapacity));
+        }
+    }
+
+    public int slotCapacity()
+    {
+        return slotCapacity;
+    }
+
+    public int magazineCapacity()
+    {
+        return magazineCapacity;
+    }
+
+    public BufferPool newCorePool()
+    {
+        final Magazine loaded = emptyMagazines.poll();
+        final Magazine previous = emptyMagazines.poll();
+        if (loaded == null || previous == null)
+        {
+            throw new IllegalStateException("more core pools than cores");
+        }
+
+        return new CoreBufferPool(this, new CoreMagazines(loaded, previous));
+    }
+
+    private Magazine exchangeEmpty(
+        Magazine empty)
+    {
+        final Magazine full = fullMagazines.poll();
+        if (full != null)
+        {
+            offer(emptyMagazines, empty);
+        }
+        return full;
+    }
+
+    private Magazine exchangeFull(
+        Magazine full)
+    {
+        // the depot holds every magazine not held by a core, so if none were empty they would all be full
+        // and, together with this one, hold more slots than there are
+        final Magazine empty = emptyMagazines.poll();
+        if (empty == null)
+        {
+            throw new IllegalStateException("no empty magazine in depot");
+        }
+        offer(fullMagazines, full);
+        return empty;
+    }
+
+    private static void offer(
+        ManyToManyConcurrentArrayQueue<Magazine> magazines,
+        Magazine magazine)
+    {
+        if (!magazines.offer(magazine))
+        {
+            throw new IllegalStateException("magazine depot is full");
+        }
+    }
+
+    private static final class Magazine
+    {
+        private final int[] slots;
+        private int count;
+
+        private Magazine(
+            int capacity)
+        {
+            this.slots = new int[capacity];
+        }
+
+        private boolean isEmpty()
+        {
+            return count == 0;
+        }
+
+        private boolean isFull()
+        {
+            return count == slots.length;
+        }
+
+        private int pop()
+        {
+            return slots[--count];
+        }
+
+        private void push(
+            int slot)
+        {
+            slots[count++] = slot;
+        }
+    }
+
+    private static final class CoreMagazines
+    {
+        private Magazine loaded;
+        private Magazine previous;
+        private int acquiredSlots;
+
+        private CoreMagazines(
+            Magazine loaded,
+            Magazine previous)
+        {
+            this.loaded = loaded;
+            this.previous = previous;
+        }
+
+        private void swap()
+        {
+            final Magazine magazine = loaded;
+            loaded = previous;
+            previous = magazine;
+        }
+
+        private void handBack(
+            SharedBufferPool depot)
+        {
+            while (!previous.isEmpty() && !loaded.isFull())
+            {
+                loaded.push(previous.pop());
+            }
+
+            if (loaded.isFull())
+            {
+                loaded = depot.exchangeFull(loaded);
+            }
+
+            if (previous.isFull())
+            {
+                previous = depot.exchangeFull(previous);
+            }
+        }
+    }
+
+    private static final class CoreBufferPool implements BufferPool
+    {
+        private final MutableDirectBuffer slotBuffer = new UnsafeBuffer(new byte[0]);
+
+        private final SharedBufferPool depot;
+        private final CoreMagazines magazines;
+        private final ByteBuffer slotByteBuffer;
+
+        private CoreBufferPool(
+            SharedBufferPool depot,
+            CoreMagazines magazines)
+        {
+            this.depot = depot;
+            this.magazines = magazines;
+            this.slotByteBuffer = depot.slabBuffer.byteBuffer().duplicate();
+        }
+
+        @Override
+        public int slotCapacity()
+        {
+            return depot.slotCapacity;
+        }
+
+        @Override
+        public int acquire(
+            long streamId)
+        {
+            final CoreMagazines magazines = this.magazines;
+
+            if (magazines.loaded.isEmpty())
+            {
+                if (!magazines.previous.isEmpty())
+                {
+                    magazines.swap();
+                }
+                else
+                {
+                    final Magazine full = depot.exchangeEmpty(magazines.previous);
+                    if (full == null)
+                    {
+                        return NO_SLOT;
+                    }
+                    magazines.previous = magazines.loaded;
+                    magazines.loaded = full;
+                }
+            }
+
+            magazines.acquiredSlots++;
+            return magazines.loaded.pop();
+        }
+
+        @Override
+        public MutableDirectBuffer buffer(
+            int slot)
+        {
+            final long slotAddressOffset = depot.slabBuffer.addressOffset() + ((long) slot << depot.bitsPerSlot);
+            slotBuffer.wrap(slotAddressOffset, depot.slotCapacity);
+            return slotBuffer;
+        }
+
+        @Override
+        public ByteBuffer byteBuffer(
+            int slot)
+        {
+            final int slotOffset = slot << depot.bitsPerSlot;
+            slotByteBuffer.clear();
+            slotByteBuffer.position(slotOffset);
+            slotByteBuffer.limit(slotOffset + depot.slotCapacity);
+            return slotByteBuffer;
+        }
+
+        @Override
+        public MutableDirectBuffer buffer(
+            int slot,
+            int offset)
+        {
+            final long slotAddressOffset = depot.slabBuffer.addressOffset() + ((long) slot << depot.bitsPerSlot);
+            slotBuffer.wrap(slotAddressOffset + offset, depot.slotCapacity);
+            return slotBuffer;
+        }
+
+        @Override
+        public void release(
+            int slot)
+        {
+            final CoreMagazines magazines = this.magazines;
+
+            if (magazines.loaded.isFull())
+            {
+                if (!magazines.previous.isFull())
+                {
+                    magazines.swap();
+                }
+                else
+                {
+                    magazines.previous = depot.exchangeFull(magazines.previous);
+                    magazines.swap();
+                }
+            }
+
+            magazines.acquiredSlots--;
+            magazines.loaded.push(slot);
+
+            if (magazines.acquiredSlots == 0)
+            {
+                magazines.handBack(depot);
+            }
+        }
+
+        @Override
+        public BufferPool duplicate()
+        {
+            return new CoreBufferPool(depot, magazines);
+        }
+
+        @Override
+        public int acquiredSlots()
+        {
+            return magazines.acquiredSlots;
+        }
+    }
+}
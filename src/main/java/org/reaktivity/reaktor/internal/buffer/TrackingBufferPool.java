@@ -0,0 +1,240 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.buffer;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.reaktivity.nukleus.buffer.BufferPool;
+
+/**
+ * A buffer pool that records the owning stream and acquire time of each acquired slot, and the acquire site
+ * for a sample of acquires, so that long-held slots can be reported while running.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+public final class TrackingBufferPool implements BufferPool
+{
+    private final BufferPool bufferPool;
+    private final Owners owners;
+
+    public TrackingBufferPool(
+        BufferPool bufferPool,
+        int sampleRate,
+        long timeoutNanos)
+    {
+        this(bufferPool, new Owners(sampleRate, timeoutNanos));
+    }
+
+    private TrackingBufferPool(
+        BufferPool bufferPool,
+        Owners owners)
+    {
+        this.bufferPool = bufferPool;
+        this.owners = owners;
+    }
+
+    public BufferPool delegate()
+    {
+        return bufferPool;
+    }
+
+    @Override
+    public int slotCapacity()
+    {
+        return bufferPool.slotCapacity();
+    }
+
+    @Override
+    public int acquire(
+        long streamId)
+    {
+        final int slot = bufferPool.acquire(streamId);
+
+        if (slot != NO_SLOT)
+        {
+            owners.acquired(slot, streamId);
+        }
+
+        return slot;
+    }
+
+    @Override
+    public MutableDirectBuffer buffer(
+        int slot)
+    {
+        return bufferPool.buffer(slot);
+    }
+
+    @Override
+    public ByteBuffer byteBuffer(
+        int slot)
+    {
+        return bufferPool.byteBuffer(slot);
+    }
+
+    @Override
+    public MutableDirectBuffer buffer(
+        int slot,
+        int offset)
+    {
+        return bufferPool.buffer(slot, offset);
+    }
+
+    @Override
+    public void release(
+        int slot)
+    {
+        owners.released(slot);
+        bufferPool.release(slot);
+    }
+
+    @Override
+    public BufferPool duplicate()
+    {
+        return new TrackingBufferPool(bufferPool.duplicate(), owners);
+    }
+
+    @Override
+    public int acquiredSlots()
+    {
+        return bufferPool.acquiredSlots();
+    }
+
+    /**
+     * Reports slots held longer than the timeout, oldest first, at most once per timeout interval
+     * @param nowNanos - Current time in nanoseconds
+     * @return Description of long-held slots, or {@code null} if not yet due or no slots are held too long
+     */
+    public String checkLongHeld(
+        long nowNanos)
+    {
+        String report = null;
+
+        if (nowNanos - owners.checkedAt >= owners.timeoutNanos)
+        {
+            owners.checkedAt = nowNanos;
+            final String description = describe(nowNanos, owners.timeoutNanos);
+            report = description.isEmpty() ? null : description;
+        }
+
+        return report;
+    }
+
+    public String describe(
+        long nowNanos,
+        long minAgeNanos)
+    {
+        final List<SlotOwner> held = new ArrayList<>();
+        owners.bySlot.values().forEach(o ->
+        {
+            if (nowNanos - o.acquiredAt >= minAgeNanos)
+            {
+                held.add(o);
+            }
+        });
+
+        String description = "";
+
+        if (!held.isEmpty())
+        {
+            held.sort(Comparator.comparingLong(o -> o.acquiredAt));
+
+            final StringWriter writer = new StringWriter();
+            final PrintWriter printer = new PrintWriter(writer);
+            for (SlotOwner owner : held)
+            {
+                printer.format("%n\t[slot=%d, stream=0x%016x, age=%d ms]",
+                        owner.slot, owner.streamId, NANOSECONDS.toMillis(nowNanos - owner.acquiredAt));
+                if (owner.site != null)
+                {
+                    owner.site.printStackTrace(printer);
+                }
+            }
+            printer.flush();
+
+            description = writer.toString();
+        }
+
+        return description;
+    }
+
+    private static final class SlotOwner
+    {
+        private int slot;
+        private long streamId;
+        private long acquiredAt;
+        private Throwable site;
+    }
+
+    private static final class Owners
+    {
+        private final Int2ObjectHashMap<SlotOwner> bySlot;
+        private final Deque<SlotOwner> spares;
+        private final int sampleRate;
+        private final long timeoutNanos;
+
+        private long checkedAt;
+        private long acquires;
+
+        private Owners(
+            int sampleRate,
+            long timeoutNanos)
+        {
+            this.bySlot = new Int2ObjectHashMap<>();
+            this.spares = new ArrayDeque<>();
+            this.sampleRate = sampleRate;
+            this.timeoutNanos = timeoutNanos;
+            this.checkedAt = System.nanoTime();
+        }
+
+        private void acquired(
+            int slot,
+            long streamId)
+        {
+            final SlotOwner owner = spares.isEmpty() ? new SlotOwner() : spares.pop();
+            owner.slot = slot;
+            owner.streamId = streamId;
+            owner.acquiredAt = System.nanoTime();
+            owner.site = sampleRate != 0 && ++acquires % sampleRate == 0
+                    ? new Throwable(format("acquire slot %d stream 0x%016x", slot, streamId))
+                    : null;
+
+            bySlot.put(slot, owner);
+        }
+
+        private void released(
+            int slot)
+        {
+            final SlotOwner owner = bySlot.remove(slot);
+            if (owner != null)
+            {
+                owner.site = null;
+                spares.push(owner);
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.layouts;
+
+import static org.agrona.BitUtil.CACHE_LINE_LENGTH;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+import static org.agrona.BitUtil.align;
+import static org.agrona.IoUtil.createEmptyFile;
+import static org.agrona.IoUtil.mapExistingFile;
+import static org.agrona.IoUtil.unmap;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+
+import org.agrona.CloseHelper;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Append-only log of complete frames, each prefixed by the time it was captured, kept in a memory-mapped file
+ * for later replay. Frames that no longer fit are dropped and counted. A non-empty capture left by a previous run
+ * is rotated to a file suffixed with the current time in milliseconds rather than overwritten.
+ * <b>Frames are appended by one and only one thread.</b>
+ */
+public final class CaptureLayout extends Layout
+{
+    public static final int RECORD_ALIGNMENT = SIZE_OF_LONG;
+
+    private static final int FIELD_OFFSET_POSITION = 0;
+    private static final int FIELD_OFFSET_DROPS = FIELD_OFFSET_POSITION + SIZE_OF_LONG;
+    private static final int END_OF_META_DATA_OFFSET = CACHE_LINE_LENGTH;
+
+    private static final int FIELD_OFFSET_LENGTH = 0;
+    private static final int FIELD_OFFSET_TYPE_ID = FIELD_OFFSET_LENGTH + SIZE_OF_INT;
+    private static final int FIELD_OFFSET_TIMESTAMP = FIELD_OFFSET_TYPE_ID + SIZE_OF_INT;
+    private static final int FIELD_OFFSET_FRAME = FIELD_OFFSET_TIMESTAMP + SIZE_OF_LONG;
+
+    private final AtomicBuffer buffer;
+    private final int capacity;
+
+    private CaptureLayout(
+        AtomicBuffer buffer,
+        int capacity)
+    {
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    public boolean capture(
+        int typeId,
+        DirectBuffer frame,
+        int index,
+        int length,
+        long timestamp)
+    {
+        final int position = (int) buffer.getLong(FIELD_OFFSET_POSITION);
+        final int recordLength = align(FIELD_OFFSET_FRAME + length, RECORD_ALIGNMENT);
+
+        if (position + recordLength > capacity)
+        {
+            buffer.putLongOrdered(FIELD_OFFSET_DROPS, buffer.getLong(FIELD_OFFSET_DROPS) + 1);
+            return false;
+        }
+
+        final int offset = END_OF_META_DATA_OFFSET + position;
+        buffer.putInt(offset + FIELD_OFFSET_LENGTH, length);
+        buffer.putInt(offset + FIELD_OFFSET_TYPE_ID, typeId);
+        buffer.putLong(offset + FIELD_OFFSET_TIMESTAMP, timestamp);
+        buffer.putBytes(offset + FIELD_OFFSET_FRAME, frame, index, length);
+        buffer.putLongOrdered(FIELD_OFFSET_POSITION, position + recordLength);
+
+        return true;
+    }
+
+    public long position()
+    {
+        return buffer.getLongVolatile(FIELD_OFFSET_POSITION);
+    }
+
+    public long drops()
+    {
+        return buffer.getLongVolatile(FIELD_OFFSET_DROPS);
+    }
+
+    public int forEach(
+        FrameHandler handler)
+    {
+        final int limit = (int) position();
+
+        int frames = 0;
+        for (int position = 0; position < limit; frames++)
+        {
+            final int offset = END_OF_META_DATA_OFFSET + position;
+            final int length = buffer.getInt(offset + FIELD_OFFSET_LENGTH);
+            final int typeId = buffer.getInt(offset + FIELD_OFFSET_TYPE_ID);
+            final long timestamp = buffer.getLong(offset + FIELD_OFFSET_TIMESTAMP);
+
+            handler.onFrame(typeId, buffer, offset + FIELD_OFFSET_FRAME, length, timestamp);
+
+            position += align(FIELD_OFFSET_FRAME + length, RECORD_ALIGNMENT);
+        }
+
+        return frames;
+    }
+
+    @Override
+    public void close()
+    {
+        unmap(buffer.byteBuffer());
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("capture [position=%d, drops=%d, capacity=%d]", position(), drops(), capacity);
+    }
+
+    @FunctionalInterface
+    public interface FrameHandler
+    {
+        void onFrame(
+            int typeId,
+            DirectBuffer buffer,
+            int index,
+            int length,
+            long timestamp);
+    }
+
+    public static final class Builder extends Layout.Builder<CaptureLayout>
+    {
+        private Path path;
+        private int capacity;
+        private boolean readonly;
+
+        public Builder path(
+            Path path)
+        {
+            this.path = path;
+            return this;
+        }
+
+        public Builder capacity(
+            int capacity)
+        {
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder readonly(
+            boolean readonly)
+        {
+            this.readonly = readonly;
+            return this;
+        }
+
+        @Override
+        public CaptureLayout build()
+        {
+            final File capture = path.toFile();
+
+            if (!readonly)
+            {
+                rotateIfCaptured(capture);
+                CloseHelper.close(createEmptyFile(capture, END_OF_META_DATA_OFFSET + capacity));
+            }
+
+            final long captureSize = capture.length();
+            final MappedByteBuffer mappedCapture = mapExistingFile(capture, "capture", 0, captureSize);
+
+            return new CaptureLayout(new UnsafeBuffer(mappedCapture), (int) captureSize - END_OF_META_DATA_OFFSET);
+        }
+
+        private static void rotateIfCaptured(
+            File capture)
+        {
+            if (capture.length() >= END_OF_META_DATA_OFFSET)
+            {
+                final MappedByteBuffer mappedMetaData = mapExistingFile(capture, "capture", 0, END_OF_META_DATA_OFFSET);
+                final long position = new UnsafeBuffer(mappedMetaData).getLongVolatile(FIELD_OFFSET_POSITION);
+                unmap(mappedMetaData);
+
+                if (position != 0L)
+                {
+                    final File rotated = new File(capture.getPath() + "." + System.currentTimeMillis());
+                    if (!capture.renameTo(rotated))
+                    {
+                        throw new IllegalStateException(String.format("unable to rotate capture %s", capture));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,460 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.layouts;
+
+import static org.agrona.BitUtil.CACHE_LINE_LENGTH;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+import static org.agrona.BitUtil.isPowerOfTwo;
+import static org.agrona.IoUtil.createEmptyFile;
+import static org.agrona.IoUtil.mapExistingFile;
+import static org.agrona.IoUtil.unmap;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+
+import org.agrona.CloseHelper;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Open addressing table of group budgets in a memory-mapped file, shared by all nuklei on all cores so that
+ * streams of the same group enforce one budget regardless of where they are processed.
+ * <p>
+ * Each entry holds the group id and a state word combining a generation with the current budget. Budgets are
+ * updated with compare-and-set on the state word only, entries are (re)assigned to groups under a table lock
+ * when a group is first released budget and a previous entry with no remaining budget can be reused.
+ * <p>
+ * The table lock records the pid of its owner and the second it was taken, so a lock left behind by a process
+ * that died while holding it is taken over once it is older than {@link #LOCK_TIMEOUT_SECONDS}, along with any
+ * entry that process left half reassigned.
+ * <p>
+ * Budget that cannot be kept in the table, because it is full, the table lock stays contended or a group budget
+ * would exceed its maximum, is kept in an in-memory overflow owned by this instance instead. One instance is
+ * shared by all cores of a reaktor, so the overflow is shared by those cores but not by other processes.
+ */
+public final class GroupBudgetsLayout extends Layout
+{
+    public static final int ENTRY_LENGTH = 2 * SIZE_OF_LONG;
+
+    private static final int FIELD_OFFSET_LOCK = 0;
+    private static final int END_OF_META_DATA_OFFSET = CACHE_LINE_LENGTH;
+
+    private static final int FIELD_OFFSET_GROUP_ID = 0;
+    private static final int FIELD_OFFSET_STATE = FIELD_OFFSET_GROUP_ID + SIZE_OF_LONG;
+
+    private static final long NO_GROUP_ID = 0L;
+
+    private static final int MAX_ATTEMPTS = 1024;
+
+    private static final long LOCK_TIMEOUT_SECONDS = 2L;
+    private static final long LOCK_SECONDS_MASK = 0xffff_ffffL;
+    private static final long LOCK_OWNER = currentPid() << 32;
+
+    private static final long STATE_LOCKED = 1L << 63;
+    private static final long STATE_GENERATION = 1L << 32;
+    private static final long STATE_BUDGET_MASK = 0x7fff_ffffL;
+
+    private final AtomicBuffer buffer;
+    private final int capacity;
+    private final int mask;
+    private final Long2LongHashMap overflow;
+
+    private volatile long overflowBudget;
+
+    private GroupBudgetsLayout(
+        AtomicBuffer buffer,
+        int capacity)
+    {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.overflow = new Long2LongHashMap(0L);
+    }
+
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    public int budget(
+        long groupId)
+    {
+        final int offset = find(groupId);
+        final long budget = offset != -1 ? buffer.getLongVolatile(offset + FIELD_OFFSET_STATE) & STATE_BUDGET_MASK : 0L;
+        return (int) Math.min(budget + overflowBudget(groupId), Integer.MAX_VALUE);
+    }
+
+    public int groups()
+    {
+        int groups = 0;
+
+        for (int index = 0; index < capacity; index++)
+        {
+            final int offset = END_OF_META_DATA_OFFSET + index * ENTRY_LENGTH;
+            final long state = buffer.getLongVolatile(offset + FIELD_OFFSET_STATE);
+            if ((state & STATE_BUDGET_MASK) != 0L)
+            {
+                groups++;
+            }
+        }
+
+        if (overflowBudget != 0L)
+        {
+            synchronized (overflow)
+            {
+                // a group holding budget in both the table and the overflow is counted twice
+                groups += overflow.size();
+            }
+        }
+
+        return groups;
+    }
+
+    public long budget()
+    {
+        long budget = 0L;
+
+        for (int index = 0; index < capacity; index++)
+        {
+            final int offset = END_OF_META_DATA_OFFSET + index * ENTRY_LENGTH;
+            final long state = buffer.getLongVolatile(offset + FIELD_OFFSET_STATE);
+            if ((state & STATE_LOCKED) == 0L)
+            {
+                budget += state & STATE_BUDGET_MASK;
+            }
+        }
+
+        return budget + overflowBudget;
+    }
+
+    public int claim(
+        long groupId,
+        int bytes)
+    {
+        int claimed = 0;
+
+        for (int attempt = 0, offset = find(groupId);
+                offset != -1 && attempt < MAX_ATTEMPTS;
+                attempt++, offset = find(groupId))
+        {
+            final long state = buffer.getLongVolatile(offset + FIELD_OFFSET_STATE);
+            if ((state & STATE_LOCKED) != 0L || buffer.getLongVolatile(offset + FIELD_OFFSET_GROUP_ID) != groupId)
+            {
+                continue;
+            }
+
+            final int budget = (int) (state & STATE_BUDGET_MASK);
+            final int newClaimed = Math.min(budget, bytes);
+            if (newClaimed == 0 || buffer.compareAndSetLong(offset + FIELD_OFFSET_STATE, state, state - newClaimed))
+            {
+                claimed = newClaimed;
+                break;
+            }
+        }
+
+        if (claimed < bytes && overflowBudget != 0L)
+        {
+            claimed += claimOverflow(groupId, bytes - claimed);
+        }
+
+        return claimed;
+    }
+
+    /**
+     * Releases budget to a group, returning the new budget of the group. Budget that cannot be kept in the
+     * table is kept in the overflow.
+     */
+    public int release(
+        long groupId,
+        int bytes)
+    {
+        final int released = releaseTable(groupId, bytes);
+
+        if (released < bytes)
+        {
+            releaseOverflow(groupId, bytes - released);
+        }
+
+        return budget(groupId);
+    }
+
+    private int releaseTable(
+        long groupId,
+        int bytes)
+    {
+        int released = 0;
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++)
+        {
+            int offset = find(groupId);
+            if (offset == -1)
+            {
+                offset = assign(groupId);
+                if (offset == -1)
+                {
+                    break;
+                }
+            }
+
+            final long state = buffer.getLongVolatile(offset + FIELD_OFFSET_STATE);
+            if ((state & STATE_LOCKED) != 0L || buffer.getLongVolatile(offset + FIELD_OFFSET_GROUP_ID) != groupId)
+            {
+                continue;
+            }
+
+            final long budget = state & STATE_BUDGET_MASK;
+            final long newBudget = Math.min(budget + bytes, STATE_BUDGET_MASK);
+            if (buffer.compareAndSetLong(offset + FIELD_OFFSET_STATE, state, state - budget + newBudget))
+            {
+                released = (int) (newBudget - budget);
+                break;
+            }
+        }
+
+        return released;
+    }
+
+    @Override
+    public void close()
+    {
+        unmap(buffer.byteBuffer());
+    }
+
+    private long overflowBudget(
+        long groupId)
+    {
+        long budget = 0L;
+
+        if (overflowBudget != 0L)
+        {
+            synchronized (overflow)
+            {
+                budget = overflow.get(groupId);
+            }
+        }
+
+        return budget;
+    }
+
+    private int claimOverflow(
+        long groupId,
+        int bytes)
+    {
+        synchronized (overflow)
+        {
+            final long budget = overflow.get(groupId);
+            final int claimed = (int) Math.min(budget, bytes);
+
+            if (claimed != 0)
+            {
+                if (budget == claimed)
+                {
+                    overflow.remove(groupId);
+                }
+                else
+                {
+                    overflow.put(groupId, budget - claimed);
+                }
+                overflowBudget -= claimed;
+            }
+
+            return claimed;
+        }
+    }
+
+    private void releaseOverflow(
+        long groupId,
+        int bytes)
+    {
+        synchronized (overflow)
+        {
+            overflow.put(groupId, overflow.get(groupId) + bytes);
+            overflowBudget += bytes;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("group budgets [capacity=%d]", capacity);
+    }
+
+    private int find(
+        long groupId)
+    {
+        for (int i = 0, index = hash(groupId); i < capacity; i++, index = (index + 1) & mask)
+        {
+            final int offset = END_OF_META_DATA_OFFSET + index * ENTRY_LENGTH;
+            final long entryGroupId = buffer.getLongVolatile(offset + FIELD_OFFSET_GROUP_ID);
+
+            if (entryGroupId == groupId)
+            {
+                return offset;
+            }
+
+            if (entryGroupId == NO_GROUP_ID)
+            {
+                break;
+            }
+        }
+
+        return -1;
+    }
+
+    private int assign(
+        long groupId)
+    {
+        final long lock = lock();
+        if (lock == 0L)
+        {
+            return -1;
+        }
+
+        try
+        {
+            int offset = find(groupId);
+
+            for (int i = 0, index = hash(groupId); offset == -1 && i < capacity; i++, index = (index + 1) & mask)
+            {
+                final int candidate = END_OF_META_DATA_OFFSET + index * ENTRY_LENGTH;
+                final long entryGroupId = buffer.getLongVolatile(candidate + FIELD_OFFSET_GROUP_ID);
+
+                if (entryGroupId == NO_GROUP_ID)
+                {
+                    buffer.putLongOrdered(candidate + FIELD_OFFSET_GROUP_ID, groupId);
+                    offset = candidate;
+                }
+                else
+                {
+                    final long state = buffer.getLongVolatile(candidate + FIELD_OFFSET_STATE);
+                    final long generation = (state & ~STATE_BUDGET_MASK) + STATE_GENERATION;
+                    if ((state & STATE_BUDGET_MASK) == 0L &&
+                        buffer.compareAndSetLong(candidate + FIELD_OFFSET_STATE, state, generation | STATE_LOCKED))
+                    {
+                        buffer.putLongOrdered(candidate + FIELD_OFFSET_GROUP_ID, groupId);
+                        buffer.putLongOrdered(candidate + FIELD_OFFSET_STATE, generation & ~STATE_LOCKED);
+                        offset = candidate;
+                    }
+                }
+            }
+
+            return offset;
+        }
+        finally
+        {
+            // leaves the lock alone if it was taken over from this owner
+            buffer.compareAndSetLong(FIELD_OFFSET_LOCK, lock, 0L);
+        }
+    }
+
+    private long lock()
+    {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++)
+        {
+            final long lock = buffer.getLongVolatile(FIELD_OFFSET_LOCK);
+            final long seconds = (System.currentTimeMillis() / 1000L) & LOCK_SECONDS_MASK;
+
+            if (lock == 0L || ((seconds - lock) & LOCK_SECONDS_MASK) > LOCK_TIMEOUT_SECONDS)
+            {
+                final long newLock = LOCK_OWNER | seconds;
+                if (buffer.compareAndSetLong(FIELD_OFFSET_LOCK, lock, newLock))
+                {
+                    return newLock;
+                }
+            }
+        }
+
+        return 0L;
+    }
+
+    private int hash(
+        long groupId)
+    {
+        final long hash = groupId * 0x9e3779b97f4a7c15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static long currentPid()
+    {
+        final String name = ManagementFactory.getRuntimeMXBean().getName();
+        final int at = name.indexOf('@');
+
+        try
+        {
+            return at != -1 ? Long.parseLong(name.substring(0, at)) & LOCK_SECONDS_MASK : 0L;
+        }
+        catch (NumberFormatException ex)
+        {
+            return 0L;
+        }
+    }
+
+    public static final class Builder extends Layout.Builder<GroupBudgetsLayout>
+    {
+        private Path path;
+        private int capacity;
+        private boolean readonly;
+
+        public Builder path(
+            Path path)
+        {
+            this.path = path;
+            return this;
+        }
+
+        public Builder capacity(
+            int capacity)
+        {
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder readonly(
+            boolean readonly)
+        {
+            this.readonly = readonly;
+            return this;
+        }
+
+        @Override
+        public GroupBudgetsLayout build()
+        {
+            if (!isPowerOfTwo(capacity))
+            {
+                throw new IllegalArgumentException("capacity is not a power of 2");
+            }
+
+            final File budgets = path.toFile();
+            final long budgetsSize = END_OF_META_DATA_OFFSET + (long) capacity * ENTRY_LENGTH;
+
+            if (!readonly && !budgets.exists())
+            {
+                CloseHelper.close(createEmptyFile(budgets, budgetsSize));
+            }
+            else if (budgets.length() != budgetsSize)
+            {
+                throw new IllegalStateException(String.format("%s does not hold %d group budgets", budgets, capacity));
+            }
+
+            final MappedByteBuffer mappedBudgets = mapExistingFile(budgets, "budgets", 0, budgetsSize);
+
+            return new GroupBudgetsLayout(new UnsafeBuffer(mappedBudgets), capacity);
+        }
+    }
+}
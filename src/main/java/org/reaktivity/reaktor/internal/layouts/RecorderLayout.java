@@ -0,0 +1,187 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.layouts;
+
+import static org.agrona.BitUtil.CACHE_LINE_LENGTH;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+import static org.agrona.BitUtil.isPowerOfTwo;
+import static org.agrona.IoUtil.createEmptyFile;
+import static org.agrona.IoUtil.mapExistingFile;
+import static org.agrona.IoUtil.unmap;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+
+import org.agrona.CloseHelper;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+/**
+ * Circular record of the most recent frame headers seen by a source or target, kept in a memory-mapped
+ * file so it can be inspected by external tools while running and after a crash.
+ * <b>Records are written by one and only one thread, readers may observe a partially written record.</b>
+ */
+public final class RecorderLayout extends Layout
+{
+    public static final int RECORD_LENGTH = 32;
+
+    private static final int FIELD_OFFSET_POSITION = 0;
+    private static final int END_OF_META_DATA_OFFSET = CACHE_LINE_LENGTH;
+
+    private static final int FIELD_OFFSET_TYPE_ID = 0;
+    private static final int FIELD_OFFSET_LENGTH = FIELD_OFFSET_TYPE_ID + SIZE_OF_INT;
+    private static final int FIELD_OFFSET_STREAM_ID = FIELD_OFFSET_LENGTH + SIZE_OF_INT;
+    private static final int FIELD_OFFSET_TIMESTAMP = FIELD_OFFSET_STREAM_ID + SIZE_OF_LONG;
+    private static final int FIELD_OFFSET_TRACE = FIELD_OFFSET_TIMESTAMP + SIZE_OF_LONG;
+
+    private final AtomicBuffer buffer;
+    private final int capacity;
+    private final int mask;
+
+    private RecorderLayout(
+        AtomicBuffer buffer,
+        int capacity)
+    {
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+    }
+
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    public void record(
+        int typeId,
+        long streamId,
+        int length,
+        long timestamp,
+        long trace)
+    {
+        final long position = buffer.getLong(FIELD_OFFSET_POSITION);
+        final int offset = END_OF_META_DATA_OFFSET + ((int) position & mask) * RECORD_LENGTH;
+
+        buffer.putInt(offset + FIELD_OFFSET_TYPE_ID, typeId);
+        buffer.putInt(offset + FIELD_OFFSET_LENGTH, length);
+        buffer.putLong(offset + FIELD_OFFSET_STREAM_ID, streamId);
+        buffer.putLong(offset + FIELD_OFFSET_TIMESTAMP, timestamp);
+        buffer.putLong(offset + FIELD_OFFSET_TRACE, trace);
+        buffer.putLongOrdered(FIELD_OFFSET_POSITION, position + 1);
+    }
+
+    public long position()
+    {
+        return buffer.getLongVolatile(FIELD_OFFSET_POSITION);
+    }
+
+    public void forEach(
+        RecordConsumer consumer)
+    {
+        final long position = position();
+        final long oldest = Math.max(position - capacity, 0L);
+
+        for (long next = oldest; next < position; next++)
+        {
+            final int offset = END_OF_META_DATA_OFFSET + ((int) next & mask) * RECORD_LENGTH;
+
+            consumer.accept(
+                    buffer.getInt(offset + FIELD_OFFSET_TYPE_ID),
+                    buffer.getLong(offset + FIELD_OFFSET_STREAM_ID),
+                    buffer.getInt(offset + FIELD_OFFSET_LENGTH),
+                    buffer.getLong(offset + FIELD_OFFSET_TIMESTAMP),
+                    buffer.getLong(offset + FIELD_OFFSET_TRACE));
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        unmap(buffer.byteBuffer());
+    }
+
+    @Override
+    public String toString()
+    {
+        final StringBuilder dump = new StringBuilder();
+        forEach((t, s, l, ts, tr) ->
+            dump.append(String.format("%n\t[type=0x%08x, stream=0x%016x, length=%d, timestamp=0x%016x, trace=0x%016x]",
+                    t, s, l, ts, tr)));
+        return dump.toString();
+    }
+
+    @FunctionalInterface
+    public interface RecordConsumer
+    {
+        void accept(
+            int typeId,
+            long streamId,
+            int length,
+            long timestamp,
+            long trace);
+    }
+
+    public static final class Builder extends Layout.Builder<RecorderLayout>
+    {
+        private Path path;
+        private int capacity;
+        private boolean readonly;
+
+        public Builder path(
+            Path path)
+        {
+            this.path = path;
+            return this;
+        }
+
+        public Builder capacity(
+            int capacity)
+        {
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder readonly(
+            boolean readonly)
+        {
+            this.readonly = readonly;
+            return this;
+        }
+
+        @Override
+        public RecorderLayout build()
+        {
+            if (!isPowerOfTwo(capacity))
+            {
+                throw new IllegalArgumentException("capacity is not a power of 2");
+            }
+
+            final File recorder = path.toFile();
+            final long recorderSize = END_OF_META_DATA_OFFSET + (long) capacity * RECORD_LENGTH;
+
+            if (!readonly)
+            {
+                CloseHelper.close(createEmptyFile(recorder, recorderSize));
+            }
+
+            final MappedByteBuffer mappedRecorder = mapExistingFile(recorder, "recorder", 0, recorderSize);
+
+            return new RecorderLayout(new UnsafeBuffer(mappedRecorder), capacity);
+        }
+    }
+}
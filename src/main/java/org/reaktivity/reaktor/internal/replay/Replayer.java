@@ -0,0 +1,131 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.replay;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.ringbuffer.RingBuffer;
+import org.reaktivity.reaktor.internal.layouts.CaptureLayout;
+import org.reaktivity.reaktor.internal.layouts.StreamsLayout;
+
+/**
+ * Replays captured frames into the streams buffer of a source, preserving the captured inter-frame timing
+ * scaled by a speedup factor, or as fast as possible when the speedup is zero.
+ * Frames written to the throttle buffer in response are discarded.
+ * <p>
+ * The streams buffer is single producer, so replay refuses to start unless the source stays quiescent for the
+ * configured interval, and stops as soon as another producer is seen writing between replayed frames.
+ */
+public final class Replayer
+{
+    private static final long NO_TIMESTAMP = -1L;
+
+    private final CaptureLayout capture;
+    private final RingBuffer streamsBuffer;
+    private final RingBuffer throttleBuffer;
+    private final double speedup;
+    private final long quiescenceNanos;
+    private final IdleStrategy idleStrategy;
+    private final MessageHandler discardHandler;
+
+    private long capturedAt;
+    private long replayedAt;
+    private long producedAt;
+
+    public Replayer(
+        CaptureLayout capture,
+        StreamsLayout streams,
+        double speedup,
+        long quiescenceNanos,
+        IdleStrategy idleStrategy)
+    {
+        this.capture = capture;
+        this.streamsBuffer = streams.streamsBuffer();
+        this.throttleBuffer = streams.throttleBuffer();
+        this.speedup = speedup;
+        this.quiescenceNanos = quiescenceNanos;
+        this.idleStrategy = idleStrategy;
+        this.discardHandler = (t, b, i, l) -> {};
+    }
+
+    public int replay()
+    {
+        producedAt = streamsBuffer.producerPosition();
+
+        final long deadline = nanoTime() + quiescenceNanos;
+        while (nanoTime() < deadline)
+        {
+            idleStrategy.idle(throttleBuffer.read(discardHandler));
+            checkExclusive();
+        }
+        idleStrategy.reset();
+
+        capturedAt = NO_TIMESTAMP;
+
+        return capture.forEach(this::replayFrame);
+    }
+
+    private void replayFrame(
+        int typeId,
+        DirectBuffer buffer,
+        int index,
+        int length,
+        long timestamp)
+    {
+        if (capturedAt == NO_TIMESTAMP)
+        {
+            capturedAt = timestamp;
+            replayedAt = nanoTime();
+        }
+
+        if (speedup != 0.0)
+        {
+            final long deadline = replayedAt + (long) ((timestamp - capturedAt) / speedup);
+            while (nanoTime() < deadline)
+            {
+                idleStrategy.idle(throttleBuffer.read(discardHandler));
+                checkExclusive();
+            }
+        }
+
+        checkExclusive();
+
+        while (!streamsBuffer.write(typeId, buffer, index, length))
+        {
+            idleStrategy.idle(throttleBuffer.read(discardHandler));
+            checkExclusive();
+        }
+
+        producedAt = streamsBuffer.producerPosition();
+
+        idleStrategy.reset();
+        throttleBuffer.read(discardHandler);
+    }
+
+    private void checkExclusive()
+    {
+        final long producerAt = streamsBuffer.producerPosition();
+        if (producerAt != producedAt)
+        {
+            throw new IllegalStateException(format("source has another producer [producedAt=0x%016x, producerAt=0x%016x]",
+                    producedAt, producerAt));
+        }
+    }
+}
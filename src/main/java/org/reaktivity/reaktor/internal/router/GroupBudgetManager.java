@@ -15,55 +15,437 @@
  */
 package org.reaktivity.reaktor.internal.router;
 
-import org.agrona.collections.Long2LongHashMap;
+import static org.agrona.BitUtil.findNextPositivePowerOfTwo;
+import static org.reaktivity.reaktor.internal.ReaktorConfiguration.GROUP_BUDGETS_HANDLES_DEFAULT;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.function.IntUnaryOperator;
+import java.util.function.LongFunction;
+
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.collections.Long2ObjectCache;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.collections.LongLongConsumer;
+import org.reaktivity.reaktor.internal.layouts.GroupBudgetsLayout;
 
+/**
+ * Manages the shared flow control budget of stream groups. Claim and release operators are created once per
+ * group and cached, so claiming and releasing group budget does not allocate as long as the number of active
+ * groups fits in the handle cache, sized by {@code reaktor.group.budgets.handles}. Groups evicted from the
+ * cache allocate new operators the next time they are looked up.
+ * <p>
+ * In fair share mode, each lookup of a claim operator for in-memory group budgets returns a new operator
+ * for one member stream of the group, so streams are expected to look up their claimer once and keep it.
+ * Every release starts a new round that splits the group budget into equal shares across the members that
+ * claimed during the previous round, and each member is debited what it claims until its share is used up.
+ * <p>
+ * A claim operator whose claim comes up short waits on its group until the next release of that group on this
+ * core, and is counted by {@link #waiting()} until then. The nukleus API has no hook to notify streams when
+ * budget is released, so waiting claimers are expected to claim again on their next window.
+ */
 class GroupBudgetManager
 {
     private static final IntUnaryOperator NOOP_CLAIM = IntUnaryOperator.identity();
     private static final IntUnaryOperator NOOP_RELEASE = groupId -> Integer.MAX_VALUE;
 
+    private static final long NO_BUDGET = -1L;
+    private static final long NO_SHARE = Long.MAX_VALUE;
+    private static final long NO_SHORTFALL = -1L;
+
+    private static final int GROUP_BUDGETS_SET_SIZE = 4;
+
     private final Long2LongHashMap budgets;
+    private final Long2ObjectHashMap<GroupShare> shares;
+    private final Long2ObjectHashMap<Deque<Claimer>> waiters;
+    private final boolean fairShare;
+    private final Long2ObjectCache<GroupBudget> groupBudgets;
+    private final LongFunction<GroupBudget> newGroupBudget;
+    private final GroupBudgetsLayout sharedBudgets;
+    private final Long2LongHashMap shortfalls;
+    private final long[] topShortfallGroupIds;
+    private final long[] topShortfalls;
+    private final LongLongConsumer sampleShortfall;
+
+    private int topShortfallsCount;
+
+    private long totalBudget;
+    private long totalClaimed;
+    private long totalShortfall;
+    private long waitingMembers;
+    private long rounds;
 
     GroupBudgetManager()
     {
-        budgets = new Long2LongHashMap(0L);
+        this(GROUP_BUDGETS_HANDLES_DEFAULT, null, false, 0);
+    }
+
+    GroupBudgetManager(
+        int handles,
+        GroupBudgetsLayout sharedBudgets,
+        boolean fairShare,
+        int topShortfalls)
+    {
+        this.sharedBudgets = sharedBudgets;
+        this.fairShare = fairShare && sharedBudgets == null;
+        this.shortfalls = topShortfalls != 0 ? new Long2LongHashMap(NO_SHORTFALL) : null;
+        this.topShortfallGroupIds = new long[topShortfalls];
+        this.topShortfalls = new long[topShortfalls];
+        this.sampleShortfall = this::sampleShortfall;
+        budgets = new Long2LongHashMap(NO_BUDGET);
+        shares = new Long2ObjectHashMap<>();
+        waiters = new Long2ObjectHashMap<>();
+        final int sets = findNextPositivePowerOfTwo(Math.max(handles / GROUP_BUDGETS_SET_SIZE, 1));
+        groupBudgets = new Long2ObjectCache<>(sets, GROUP_BUDGETS_SET_SIZE, g -> {});
+        newGroupBudget = GroupBudget::new;
     }
 
     public IntUnaryOperator claim(
         long groupId)
     {
         return groupId == 0
-            ? NOOP_CLAIM :
-            bytes -> doClaim(groupId, bytes);
+            ? NOOP_CLAIM : fairShare
+            ? new MemberClaim(groupId) :
+            groupBudgets.computeIfAbsent(groupId, newGroupBudget).claim;
     }
 
     public IntUnaryOperator release(
         long groupId)
     {
         return groupId == 0
-                ? NOOP_RELEASE :
-                bytes -> doRelease(groupId, bytes);
+            ? NOOP_RELEASE :
+            groupBudgets.computeIfAbsent(groupId, newGroupBudget).release;
+    }
+
+    public long groups()
+    {
+        return sharedBudgets != null ? sharedBudgets.groups() : budgets.size();
+    }
+
+    public long budget()
+    {
+        return sharedBudgets != null ? sharedBudgets.budget() : totalBudget;
+    }
+
+    public long claimed()
+    {
+        return totalClaimed;
+    }
+
+    public long shortfall()
+    {
+        return totalShortfall;
+    }
+
+    public long waiting()
+    {
+        return waitingMembers;
+    }
+
+    public int sampleShortfalls()
+    {
+        topShortfallsCount = 0;
+
+        if (shortfalls != null)
+        {
+            shortfalls.longForEach(sampleShortfall);
+            shortfalls.clear();
+        }
+
+        return topShortfallsCount;
+    }
+
+    public long topShortfallGroupId(
+        int index)
+    {
+        return topShortfallGroupIds[index];
+    }
+
+    public long topShortfall(
+        int index)
+    {
+        return topShortfalls[index];
     }
 
     private int doClaim(
         long groupId,
         long bytes)
     {
-        long budget = budgets.get(groupId);
-        long claimed = Math.min(budget, bytes);
-        budgets.computeIfPresent(groupId, (k, v) -> budget - claimed);
+        final long budget = budget(groupId);
+        final long claimed = Math.min(budget, bytes);
+
+        updateBudget(groupId, budget - claimed);
+        totalBudget -= claimed;
+        return onClaimed(groupId, bytes, claimed);
+    }
+
+    private int doMemberClaim(
+        MemberClaim member,
+        long bytes)
+    {
+        final long groupId = member.groupId;
+
+        GroupShare share = shares.get(groupId);
+        if (share == null)
+        {
+            share = new GroupShare(++rounds);
+            shares.put(groupId, share);
+        }
+
+        if (member.round != share.round)
+        {
+            member.round = share.round;
+            member.claimed = 0L;
+            share.members++;
+        }
+
+        final long budget = budget(groupId);
+        final long claimed = Math.min(Math.min(budget, share.share - member.claimed), bytes);
+
+        member.claimed += claimed;
+        updateBudget(groupId, budget - claimed);
+        totalBudget -= claimed;
+        return onClaimed(groupId, bytes, claimed);
+    }
+
+    private int onClaimed(
+        long groupId,
+        long bytes,
+        long claimed)
+    {
+        totalClaimed += claimed;
+
+        if (claimed < bytes)
+        {
+            final long shortfall = bytes - claimed;
+            totalShortfall += shortfall;
+
+            if (shortfalls != null)
+            {
+                final long groupShortfall = shortfalls.get(groupId);
+                shortfalls.put(groupId, groupShortfall != NO_SHORTFALL ? groupShortfall + shortfall : shortfall);
+            }
+        }
+
         return (int) claimed;
     }
 
+    private void sampleShortfall(
+        long groupId,
+        long shortfall)
+    {
+        final int limit = topShortfalls.length;
+
+        int index = topShortfallsCount < limit ? topShortfallsCount++ : limit;
+        for (; index > 0 && topShortfalls[index - 1] < shortfall; index--)
+        {
+            if (index < limit)
+            {
+                topShortfallGroupIds[index] = topShortfallGroupIds[index - 1];
+                topShortfalls[index] = topShortfalls[index - 1];
+            }
+        }
+
+        if (index < limit)
+        {
+            topShortfallGroupIds[index] = groupId;
+            topShortfalls[index] = shortfall;
+        }
+    }
+
     private int doRelease(
         long groupId,
         long bytes)
     {
-        long budget = budgets.get(groupId);
+        long budget = budget(groupId);
         long newBudget = budget + bytes;
-        budgets.computeIfPresent(groupId, (k, v) -> newBudget);
+
+        if (fairShare)
+        {
+            final GroupShare share = shares.get(groupId);
+            if (share != null)
+            {
+                if (share.members != 0)
+                {
+                    share.round = ++rounds;
+                    share.share = Math.max(newBudget / share.members, 1L);
+                    share.members = 0;
+                }
+                else
+                {
+                    shares.remove(groupId);
+                }
+            }
+        }
+
+        updateBudget(groupId, newBudget);
+        totalBudget += bytes;
+        onReleased(groupId);
         return (int) newBudget;
     }
+
+    private int doSharedClaim(
+        long groupId,
+        int bytes)
+    {
+        return onClaimed(groupId, bytes, sharedBudgets.claim(groupId, bytes));
+    }
+
+    private int doSharedRelease(
+        long groupId,
+        int bytes)
+    {
+        final int newBudget = sharedBudgets.release(groupId, bytes);
+        onReleased(groupId);
+        return newBudget;
+    }
+
+    private void onWaiting(
+        Claimer claimer)
+    {
+        Deque<Claimer> groupWaiters = waiters.get(claimer.groupId);
+        if (groupWaiters == null)
+        {
+            groupWaiters = new ArrayDeque<>();
+            waiters.put(claimer.groupId, groupWaiters);
+        }
+
+        groupWaiters.add(claimer);
+        waitingMembers++;
+    }
+
+    private void onReleased(
+        long groupId)
+    {
+        final Deque<Claimer> groupWaiters = waiters.remove(groupId);
+        if (groupWaiters != null)
+        {
+            for (Claimer claimer = groupWaiters.poll(); claimer != null; claimer = groupWaiters.poll())
+            {
+                claimer.waiting = false;
+                waitingMembers--;
+            }
+        }
+    }
+
+    private long budget(
+        long groupId)
+    {
+        final long budget = budgets.get(groupId);
+        return budget != NO_BUDGET ? budget : 0L;
+    }
+
+    private void updateBudget(
+        long groupId,
+        long budget)
+    {
+        if (budget != 0L)
+        {
+            budgets.put(groupId, budget);
+        }
+        else
+        {
+            budgets.remove(groupId);
+        }
+    }
+
+    private static final class GroupShare
+    {
+        private long round;
+        private long share;
+        private int members;
+
+        private GroupShare(
+            long round)
+        {
+            this.round = round;
+            this.share = NO_SHARE;
+        }
+    }
+
+    private abstract class Claimer implements IntUnaryOperator
+    {
+        protected final long groupId;
+
+        private boolean waiting;
+
+        private Claimer(
+            long groupId)
+        {
+            this.groupId = groupId;
+        }
+
+        @Override
+        public final int applyAsInt(
+            int bytes)
+        {
+            final int claimed = claim(bytes);
+
+            if (claimed < bytes && !waiting)
+            {
+                waiting = true;
+                onWaiting(this);
+            }
+
+            return claimed;
+        }
+
+        protected abstract int claim(
+            int bytes);
+    }
+
+    private final class GroupClaim extends Claimer
+    {
+        private GroupClaim(
+            long groupId)
+        {
+            super(groupId);
+        }
+
+        @Override
+        protected int claim(
+            int bytes)
+        {
+            return sharedBudgets != null ? doSharedClaim(groupId, bytes) : doClaim(groupId, bytes);
+        }
+    }
+
+    private final class MemberClaim extends Claimer
+    {
+        private long round;
+        private long claimed;
+
+        private MemberClaim(
+            long groupId)
+        {
+            super(groupId);
+        }
+
+        @Override
+        protected int claim(
+            int bytes)
+        {
+            return doMemberClaim(this, bytes);
+        }
+    }
+
+    private final class GroupBudget
+    {
+        private final IntUnaryOperator claim;
+        private final IntUnaryOperator release;
+
+        private GroupBudget(
+            long groupId)
+        {
+            this.claim = new GroupClaim(groupId);
+            if (sharedBudgets != null)
+            {
+                this.release = bytes -> doSharedRelease(groupId, bytes);
+            }
+            else
+            {
+                this.release = bytes -> doRelease(groupId, bytes);
+            }
+        }
+    }
 }
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.router;
+
+import static java.lang.String.format;
+
+import org.agrona.concurrent.ringbuffer.RingBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.reaktivity.nukleus.function.MessagePredicate;
+import org.reaktivity.reaktor.internal.Counters;
+
+final class RingGauges
+{
+    private final RingBuffer buffer;
+    private final long capacity;
+    private final AtomicCounter occupancy;
+    private final AtomicCounter lag;
+    private final AtomicCounter highWater;
+
+    private long lastLag;
+    private long maxLag;
+
+    RingGauges(
+        Counters counters,
+        String ringName,
+        RingBuffer buffer)
+    {
+        this.buffer = buffer;
+        this.capacity = buffer.capacity();
+        this.occupancy = counters.counter(format("%s.occupancy", ringName));
+        this.lag = counters.counter(format("%s.lag", ringName));
+        this.highWater = counters.counter(format("%s.highwater", ringName));
+    }
+
+    public void update()
+    {
+        final long newLag = buffer.producerPosition() - buffer.consumerPosition();
+
+        if (newLag != lastLag)
+        {
+            lag.setOrdered(newLag);
+            occupancy.setOrdered(newLag * 100L / capacity);
+
+            if (newLag > maxLag)
+            {
+                highWater.setOrdered(newLag);
+                maxLag = newLag;
+            }
+
+            lastLag = newLag;
+        }
+    }
+
+    /**
+     * Retries a write that finds the ring full up to {@code retries} times, yielding in between, and counts
+     * every failed attempt as a rejection. Only the final failure is fatal to the caller.
+     */
+    static MessagePredicate retryWrite(
+        MessagePredicate write,
+        int retries,
+        Runnable rejects)
+    {
+        return retries == 0 ? write : (t, b, i, l) ->
+        {
+            boolean written = write.test(t, b, i, l);
+            for (int attempt = 0; !written && attempt < retries; attempt++)
+            {
+                rejects.run();
+                Thread.yield();
+                written = write.test(t, b, i, l);
+            }
+            return written;
+        };
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.router;
+
+import static java.lang.String.format;
+
+import org.agrona.concurrent.ringbuffer.RingBuffer;
+import org.reaktivity.reaktor.internal.Context;
+import org.reaktivity.reaktor.internal.layouts.StreamsLayout;
+
+/**
+ * Detects a ring with pending data whose consumer position has not moved for longer than the
+ * stall timeout, typically because the peer process at the other end of the ring has died.
+ * Stalls are only reported, since the one-to-one rings of a streams layout cannot be unblocked.
+ * <b>Each instance of this class is assumed to be used by one and only one thread.</b>
+ */
+final class RingWatchdog
+{
+    private final RingBuffer buffer;
+    private final long timeoutNanos;
+    private final Runnable onStalled;
+
+    private long lastConsumerPosition;
+    private long stalledAt;
+
+    RingWatchdog(
+        RingBuffer buffer,
+        long timeoutNanos,
+        Runnable onStalled)
+    {
+        this.buffer = buffer;
+        this.timeoutNanos = timeoutNanos;
+        this.onStalled = onStalled;
+        this.lastConsumerPosition = -1L;
+    }
+
+    static Runnable newCheckStalled(
+        Context context,
+        String owner,
+        StreamsLayout layout)
+    {
+        final long timeoutNanos = context.streamsStallTimeoutNanos();
+
+        Runnable checkStalled = () -> {};
+
+        if (timeoutNanos != 0L)
+        {
+            final RingWatchdog streamsWatchdog = new RingWatchdog(layout.streamsBuffer(), timeoutNanos,
+                    () -> onStalled(context, owner, "streams", layout));
+            final RingWatchdog throttleWatchdog = new RingWatchdog(layout.throttleBuffer(), timeoutNanos,
+                    () -> onStalled(context, owner, "throttle", layout));
+            checkStalled = () ->
+            {
+                streamsWatchdog.check();
+                throttleWatchdog.check();
+            };
+        }
+
+        return checkStalled;
+    }
+
+    public void check()
+    {
+        final long consumerPosition = buffer.consumerPosition();
+
+        if (consumerPosition == buffer.producerPosition())
+        {
+            lastConsumerPosition = -1L;
+        }
+        else if (consumerPosition != lastConsumerPosition)
+        {
+            lastConsumerPosition = consumerPosition;
+            stalledAt = 0L;
+        }
+        else
+        {
+            final long now = System.nanoTime();
+
+            if (stalledAt == 0L)
+            {
+                stalledAt = now;
+            }
+
+            if (now - stalledAt >= timeoutNanos)
+            {
+                onStalled.run();
+                stalledAt = now;
+            }
+        }
+    }
+
+    private static void onStalled(
+        Context context,
+        String owner,
+        String ring,
+        StreamsLayout layout)
+    {
+        context.counters().counter("stalls").increment();
+        context.logger().warning(format("[%s] stalled %s %s, one-to-one rings cannot be unblocked", owner, ring, layout));
+    }
+}
@@ -15,10 +15,13 @@
  */
 package org.reaktivity.reaktor.internal.router;
 
+import static java.lang.String.format;
+
 import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -28,6 +31,7 @@ import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.agrona.concurrent.status.AtomicCounter;
 import org.reaktivity.nukleus.Nukleus;
+import org.reaktivity.nukleus.buffer.BufferPool;
 import org.reaktivity.nukleus.function.MessageConsumer;
 import org.reaktivity.nukleus.function.MessageFunction;
 import org.reaktivity.nukleus.function.MessagePredicate;
@@ -35,8 +39,13 @@ import org.reaktivity.nukleus.route.RouteKind;
 import org.reaktivity.nukleus.route.RouteManager;
 import org.reaktivity.nukleus.stream.StreamFactoryBuilder;
 import org.reaktivity.reaktor.internal.Context;
+import org.reaktivity.reaktor.internal.Counters;
 import org.reaktivity.reaktor.internal.State;
+import org.reaktivity.reaktor.internal.buffer.BufferPoolMetrics;
+import org.reaktivity.reaktor.internal.buffer.ElasticBufferPool;
+import org.reaktivity.reaktor.internal.buffer.TrackingBufferPool;
 import org.reaktivity.reaktor.internal.conductor.Conductor;
+import org.reaktivity.reaktor.internal.layouts.RecorderLayout;
 import org.reaktivity.reaktor.internal.layouts.RoutesLayout;
 import org.reaktivity.reaktor.internal.layouts.StreamsLayout;
 import org.reaktivity.reaktor.internal.types.ListFW;
@@ -64,6 +73,10 @@ public final class Router extends Nukleus.Composite implements RouteManager
     private final MutableDirectBuffer routeBuf;
     private final AtomicLong correlations;
     private final GroupBudgetManager groupBudgetManager;
+    private final Runnable updateGroupBudgets;
+    private final Runnable updateMetrics;
+    private final Consumer<RouteFW> onRouted;
+    private final Consumer<RouteFW> onUnrouted;
 
     private final RoutesLayout routesLayout;
     private final MutableDirectBuffer routesBuffer;
@@ -71,6 +84,7 @@ public final class Router extends Nukleus.Composite implements RouteManager
 
     private Conductor conductor;
     private State state;
+    private Runnable updateFootprint;
     private Function<RouteKind, StreamFactoryBuilder> supplyStreamFactoryBuilder;
     private boolean timestamps;
     private Function<Role, MessagePredicate> supplyRouteHandler;
@@ -89,10 +103,16 @@ public final class Router extends Nukleus.Composite implements RouteManager
         this.targetsByName = new HashMap<>();
         this.routeBuf = new UnsafeBuffer(ByteBuffer.allocateDirect(context.maxControlCommandLength()));
         this.correlations  = new AtomicLong();
-        this.groupBudgetManager = new GroupBudgetManager();
+        this.groupBudgetManager = new GroupBudgetManager(context.groupBudgetsHandles(), context.groupBudgetsLayout(),
+                context.groupBudgetsFairShare(), context.groupBudgetsGaugesTop());
         this.routesLayout = context.routesLayout();
         this.routesBuffer = routesLayout.routesBuffer();
         this.routesBufferCapacity = routesLayout.capacity();
+        this.updateFootprint = () -> {};
+        this.updateMetrics = context.bufferPoolMetrics() != null ? newUpdateMetrics(context.bufferPoolMetrics()) : () -> {};
+        this.updateGroupBudgets = context.groupBudgetsGauges() ? newUpdateGroupBudgets() : () -> {};
+        this.onRouted = context.countersRoutes() ? this::incrementSourceRoutes : r -> {};
+        this.onUnrouted = context.countersRoutes() ? this::decrementSourceRoutes : r -> {};
     }
 
     public void setConductor(
@@ -105,6 +125,19 @@ public final class Router extends Nukleus.Composite implements RouteManager
         State state)
     {
         this.state = state;
+
+        BufferPool bufferPool = state.bufferPool();
+        if (bufferPool instanceof TrackingBufferPool)
+        {
+            bufferPool = ((TrackingBufferPool) bufferPool).delegate();
+        }
+
+        if (bufferPool instanceof ElasticBufferPool)
+        {
+            final ElasticBufferPool elasticBufferPool = (ElasticBufferPool) bufferPool;
+            final AtomicCounter footprint = context.counters().counter("buffer.pool.footprint");
+            this.updateFootprint = () -> footprint.setOrdered(elasticBufferPool.footprint());
+        }
     }
 
     public void setStreamFactoryBuilderSupplier(
@@ -155,6 +188,21 @@ public final class Router extends Nukleus.Composite implements RouteManager
         return "router";
     }
 
+    @Override
+    public int process()
+    {
+        updateFootprint.run();
+        updateMetrics.run();
+        updateGroupBudgets.run();
+
+        final int workCount = super.process();
+
+        context.counters().flush();
+        context.counters().reclaim();
+
+        return workCount;
+    }
+
     @Override
     public MessageConsumer supplyTarget(
         String targetName)
@@ -321,6 +369,8 @@ public final class Router extends Nukleus.Composite implements RouteManager
                 });
             routeTableRW.build();
 
+            onRouted.accept(route);
+
             final Role role = route.role().get();
             final RouteKind kind = ReferenceKind.sourceKind(role).toRouteKind();
 
@@ -366,6 +416,10 @@ public final class Router extends Nukleus.Composite implements RouteManager
                     {
                         b.item(ob ->  ob.route(route.buffer(), route.offset(), route.sizeof()));
                     }
+                    else
+                    {
+                        onUnrouted.accept(route);
+                    }
                 });
             });
 
@@ -374,6 +428,28 @@ public final class Router extends Nukleus.Composite implements RouteManager
         return beforeSize > afterSize;
     }
 
+    private void incrementSourceRoutes(
+        RouteFW route)
+    {
+        context.counters().scopedCounter(sourceRoutesName(route)).increment();
+    }
+
+    private void decrementSourceRoutes(
+        RouteFW route)
+    {
+        final String name = sourceRoutesName(route);
+        if (context.counters().scopedCounter(name).decrement() <= 0L)
+        {
+            context.counters().free(name);
+        }
+    }
+
+    private static String sourceRoutesName(
+        RouteFW route)
+    {
+        return format("source.%s.routes", route.source().asString());
+    }
+
     @Override
     public void close() throws Exception
     {
@@ -394,12 +470,114 @@ public final class Router extends Nukleus.Composite implements RouteManager
     {
         StreamsLayout layout = new StreamsLayout.Builder()
                 .path(context.targetStreamsPath().apply(targetName))
-                .streamsCapacity(context.streamsBufferCapacity())
-                .throttleCapacity(context.throttleBufferCapacity())
+                .streamsCapacity(context.targetStreamsCapacity().applyAsInt(targetName))
+                .throttleCapacity(context.targetThrottleCapacity().applyAsInt(targetName))
                 .readonly(true)
                 .build();
 
-        return include(new Target(context.name(), targetName, layout, writeBuffer, timestamps));
+        Runnable updateGauges = () -> {};
+        Runnable streamsRejects = () -> {};
+
+        if (context.streamsGauges())
+        {
+            final Counters counters = context.counters();
+            final RingGauges throttleGauges =
+                    new RingGauges(counters, format("target.%s.throttle", targetName), layout.throttleBuffer());
+            final AtomicCounter streamsRejected = counters.counter(format("target.%s.streams.rejects", targetName));
+            updateGauges = throttleGauges::update;
+            streamsRejects = streamsRejected::increment;
+        }
+
+        final Runnable checkStalled = RingWatchdog.newCheckStalled(context, format("%s/%s", targetName, context.name()), layout);
+
+        RecorderLayout recorder = null;
+
+        if (context.streamsRecorderCapacity() != 0)
+        {
+            recorder = new RecorderLayout.Builder()
+                    .path(context.targetRecorderPath().apply(targetName))
+                    .capacity(context.streamsRecorderCapacity())
+                    .readonly(false)
+                    .build();
+        }
+
+        return include(new Target(context.name(), targetName, layout, writeBuffer, timestamps,
+                updateGauges, streamsRejects, context.streamsWriteRetries(), checkStalled, recorder));
+    }
+
+    private Runnable newUpdateMetrics(
+        BufferPoolMetrics metrics)
+    {
+        final Counters counters = context.counters();
+        final AtomicCounter peak = counters.counter("buffer.pool.peak");
+        final AtomicCounter failures = counters.counter("buffer.pool.failures");
+        final AtomicCounter[] held = new AtomicCounter[BufferPoolMetrics.BUCKETS];
+        for (int bucket = 0; bucket < held.length; bucket++)
+        {
+            held[bucket] = counters.counter(format("buffer.pool.held.%dus", BufferPoolMetrics.bucketLimitMicros(bucket)));
+        }
+
+        final long[] publishedVersion = { -1L };
+        return () ->
+        {
+            if (metrics.version() != publishedVersion[0])
+            {
+                publishedVersion[0] = metrics.version();
+                peak.setOrdered(metrics.peakAcquiredSlots());
+                failures.setOrdered(metrics.acquireFailures());
+                for (int bucket = 0; bucket < held.length; bucket++)
+                {
+                    held[bucket].setOrdered(metrics.heldCount(bucket));
+                }
+            }
+        };
+    }
+
+    private Runnable newUpdateGroupBudgets()
+    {
+        final Counters counters = context.counters();
+        final AtomicCounter groups = counters.counter("group.budgets.groups");
+        final AtomicCounter budget = counters.counter("group.budgets.budget");
+        final AtomicCounter claimed = counters.counter("group.budgets.claimed");
+        final AtomicCounter shortfall = counters.counter("group.budgets.shortfall");
+        final AtomicCounter waiting = counters.counter("group.budgets.waiting");
+
+        final int top = context.groupBudgetsGaugesTop();
+        final AtomicCounter[] topGroupIds = new AtomicCounter[top];
+        final AtomicCounter[] topShortfalls = new AtomicCounter[top];
+        for (int index = 0; index < top; index++)
+        {
+            topGroupIds[index] = counters.counter(format("group.budgets.top.%d.id", index));
+            topShortfalls[index] = counters.counter(format("group.budgets.top.%d.shortfall", index));
+        }
+
+        final long intervalNanos = context.groupBudgetsGaugesIntervalNanos();
+        final long[] sampleAt = { System.nanoTime() };
+        return () ->
+        {
+            final long now = System.nanoTime();
+            if (now - sampleAt[0] < 0L)
+            {
+                return;
+            }
+            sampleAt[0] = now + intervalNanos;
+
+            groups.setOrdered(groupBudgetManager.groups());
+            budget.setOrdered(groupBudgetManager.budget());
+            claimed.setOrdered(groupBudgetManager.claimed());
+            shortfall.setOrdered(groupBudgetManager.shortfall());
+            waiting.setOrdered(groupBudgetManager.waiting());
+
+            if (top != 0)
+            {
+                final int count = groupBudgetManager.sampleShortfalls();
+                for (int index = 0; index < top; index++)
+                {
+                    topGroupIds[index].setOrdered(index < count ? groupBudgetManager.topShortfallGroupId(index) : 0L);
+                    topShortfalls[index].setOrdered(index < count ? groupBudgetManager.topShortfall(index) : 0L);
+                }
+            }
+        };
     }
 
     private Source supplySource(
@@ -15,6 +15,7 @@
  */
 package org.reaktivity.reaktor.internal.router;
 
+import static java.lang.String.format;
 import static org.agrona.LangUtil.rethrowUnchecked;
 import static org.reaktivity.reaktor.internal.types.stream.FrameFW.FIELD_OFFSET_TIMESTAMP;
 
@@ -43,9 +44,14 @@ import org.reaktivity.nukleus.route.RouteKind;
 import org.reaktivity.nukleus.route.RouteManager;
 import org.reaktivity.nukleus.stream.StreamFactory;
 import org.reaktivity.nukleus.stream.StreamFactoryBuilder;
+import org.reaktivity.reaktor.internal.BatchedCounter;
 import org.reaktivity.reaktor.internal.Context;
 import org.reaktivity.reaktor.internal.State;
+import org.reaktivity.reaktor.internal.StripedCounter;
 import org.reaktivity.reaktor.internal.buffer.CountingBufferPool;
+import org.reaktivity.reaktor.internal.buffer.QuotaBufferPool;
+import org.reaktivity.reaktor.internal.layouts.CaptureLayout;
+import org.reaktivity.reaktor.internal.layouts.RecorderLayout;
 import org.reaktivity.reaktor.internal.layouts.StreamsLayout;
 import org.reaktivity.reaktor.internal.types.stream.AbortFW;
 import org.reaktivity.reaktor.internal.types.stream.BeginFW;
@@ -72,6 +78,13 @@ final class Source implements Nukleus
     private final MessageHandler readHandler;
     private final MessageConsumer writeHandler;
     private final boolean timestamps;
+    private final Runnable updateGauges;
+    private final Runnable throttleRejects;
+    private final Runnable checkStalled;
+    private final RecorderLayout recorder;
+    private final MessageConsumer frameRecorder;
+    private final CaptureLayout capture;
+    private final MessageConsumer frameCapture;
 
     private final Long2ObjectHashMap<MessageConsumer> streams;
     private final Function<RouteKind, StreamFactory> supplyStreamFactory;
@@ -100,22 +113,104 @@ final class Source implements Nukleus
 
         final StreamsLayout layout = new StreamsLayout.Builder()
                 .path(context.sourceStreamsPath().apply(sourceName))
-                .streamsCapacity(context.streamsBufferCapacity())
-                .throttleCapacity(context.throttleBufferCapacity())
+                .streamsCapacity(context.sourceStreamsCapacity().applyAsInt(sourceName))
+                .throttleCapacity(context.sourceThrottleCapacity().applyAsInt(sourceName))
                 .readonly(false)
                 .build();
 
         this.layout = layout;
         this.streamsDescriptor = layout::toString;
         this.streamsBuffer = layout.streamsBuffer()::read;
-        this.throttleBuffer = layout.throttleBuffer()::write;
+
+        if (context.streamsGauges())
+        {
+            final RingGauges streamsGauges =
+                    new RingGauges(context.counters(), format("source.%s.streams", sourceName), layout.streamsBuffer());
+            final AtomicCounter throttleRejects = context.counters().counter(format("source.%s.throttle.rejects", sourceName));
+            this.updateGauges = streamsGauges::update;
+            this.throttleRejects = throttleRejects::increment;
+        }
+        else
+        {
+            this.updateGauges = () -> {};
+            this.throttleRejects = () -> {};
+        }
+
+        this.throttleBuffer =
+                RingGauges.retryWrite(layout.throttleBuffer()::write, context.streamsWriteRetries(), throttleRejects);
+
+        this.checkStalled = RingWatchdog.newCheckStalled(context, format("%s/%s", nukleusName, sourceName), layout);
+
+        if (context.streamsRecorderCapacity() != 0)
+        {
+            this.recorder = new RecorderLayout.Builder()
+                    .path(context.sourceRecorderPath().apply(sourceName))
+                    .capacity(context.streamsRecorderCapacity())
+                    .readonly(false)
+                    .build();
+            this.frameRecorder = this::recordFrame;
+        }
+        else
+        {
+            this.recorder = null;
+            this.frameRecorder = (t, b, i, l) -> {};
+        }
+
+        final int captureCapacity = context.sourceCaptureCapacity().applyAsInt(sourceName);
+        if (captureCapacity != 0)
+        {
+            this.capture = new CaptureLayout.Builder()
+                    .path(context.sourceCapturePath().apply(sourceName))
+                    .capacity(captureCapacity)
+                    .readonly(false)
+                    .build();
+            this.frameCapture = (t, b, i, l) -> capture.capture(t, b, i, l, System.nanoTime());
+        }
+        else
+        {
+            this.capture = null;
+            this.frameCapture = (t, b, i, l) -> {};
+        }
 
         final Map<RouteKind, StreamFactory> streamFactories = new EnumMap<>(RouteKind.class);
-        final Function<String, LongSupplier> supplyCounter = name -> () -> context.counters().counter(name).increment() + 1;
-        final Function<String, LongConsumer> supplyAccumulator = name -> (i) -> context.counters().counter(name).add(i);
-        final AtomicCounter acquires = context.counters().acquires();
-        final AtomicCounter releases = context.counters().releases();
-        final BufferPool bufferPool = new CountingBufferPool(state.bufferPool(), acquires::increment, releases::increment);
+        final boolean countersSingleWriter = context.countersSingleWriter();
+        final Function<String, LongSupplier> supplyCounter = name -> context.counters().supplyCounter(name, countersSingleWriter);
+        final Function<String, LongConsumer> supplyAccumulator =
+                name -> context.counters().supplyAccumulator(name, countersSingleWriter);
+        final LongSupplier acquire;
+        final LongSupplier release;
+        final LongSupplier acquiredSlots;
+        final StripedCounter stripedAcquires = context.counters().stripedCounter("acquires");
+        if (context.countersBatched())
+        {
+            final BatchedCounter acquires = context.counters().batchedCounter("acquires");
+            final BatchedCounter releases = context.counters().batchedCounter("releases");
+            acquire = acquires::increment;
+            release = releases::increment;
+            acquiredSlots = () -> acquires.get() - releases.get();
+        }
+        else if (stripedAcquires != null)
+        {
+            final StripedCounter stripedReleases = context.counters().stripedCounter("releases");
+            acquire = stripedAcquires::increment;
+            release = stripedReleases::increment;
+            acquiredSlots = () -> stripedAcquires.get() - stripedReleases.get();
+        }
+        else
+        {
+            final AtomicCounter acquires = context.counters().acquires();
+            final AtomicCounter releases = context.counters().releases();
+            acquire = acquires::increment;
+            release = releases::increment;
+            acquiredSlots = () -> acquires.get() - releases.get();
+        }
+        final BufferPool countingBufferPool = new CountingBufferPool(state.bufferPool(), acquire, release,
+                context.bufferPoolMetrics());
+        final int bufferPoolQuota = context.bufferPoolQuota();
+        final BufferPool bufferPool = bufferPoolQuota != 0
+                ? new QuotaBufferPool(countingBufferPool, acquiredSlots, bufferPoolQuota,
+                        context.counters().counter("buffer.pool.denials")::increment)
+                : countingBufferPool;
         final Supplier<BufferPool> supplyCountingBufferPool = () -> bufferPool;
         for (RouteKind kind : EnumSet.allOf(RouteKind.class))
         {
@@ -155,6 +250,9 @@ final class Source implements Nukleus
     @Override
     public int process()
     {
+        updateGauges.run();
+        checkStalled.run();
+
         return streamsBuffer.applyAsInt(readHandler);
     }
 
@@ -169,6 +267,16 @@ final class Source implements Nukleus
         streams.forEach(this::doAbort);
 
         layout.close();
+
+        if (recorder != null)
+        {
+            recorder.close();
+        }
+
+        if (capture != null)
+        {
+            capture.close();
+        }
     }
 
     @Override
@@ -190,6 +298,8 @@ final class Source implements Nukleus
             ((MutableDirectBuffer) buffer).putLong(index + FIELD_OFFSET_TIMESTAMP, System.nanoTime());
         }
 
+        frameRecorder.accept(msgTypeId, buffer, index, length);
+
         switch (msgTypeId)
         {
         case WindowFW.TYPE_ID:
@@ -208,6 +318,7 @@ final class Source implements Nukleus
 
         if (!handled)
         {
+            throttleRejects.run();
             throw new IllegalStateException("Unable to write to throttle buffer");
         }
     }
@@ -218,6 +329,8 @@ final class Source implements Nukleus
         int index,
         int length)
     {
+        frameRecorder.accept(msgTypeId, buffer, index, length);
+        frameCapture.accept(msgTypeId, buffer, index, length);
         frameRO.wrap(buffer, index, index + length);
 
         final long streamId = frameRO.streamId();
@@ -254,12 +367,23 @@ final class Source implements Nukleus
         }
         catch (Throwable ex)
         {
-            ex.addSuppressed(new Exception(String.format("[%s/%s]\t[0x%016x] %s",
-                                                         nukleusName, name, streamId, streamsDescriptor.get())));
+            ex.addSuppressed(new Exception(String.format("[%s/%s]\t[0x%016x] %s%s",
+                                                         nukleusName, name, streamId, streamsDescriptor.get(),
+                                                         recorder != null ? recorder : "")));
             rethrowUnchecked(ex);
         }
     }
 
+    private void recordFrame(
+        int msgTypeId,
+        DirectBuffer buffer,
+        int index,
+        int length)
+    {
+        final FrameFW frame = frameRO.wrap(buffer, index, index + length);
+        recorder.record(msgTypeId, frame.streamId(), length, frame.timestamp(), frame.trace());
+    }
+
     private void handleUnrecognized(
         int msgTypeId,
         MutableDirectBuffer buffer,
@@ -27,6 +27,7 @@ import org.agrona.concurrent.MessageHandler;
 import org.reaktivity.nukleus.Nukleus;
 import org.reaktivity.nukleus.function.MessageConsumer;
 import org.reaktivity.nukleus.function.MessagePredicate;
+import org.reaktivity.reaktor.internal.layouts.RecorderLayout;
 import org.reaktivity.reaktor.internal.layouts.StreamsLayout;
 import org.reaktivity.reaktor.internal.types.stream.AbortFW;
 import org.reaktivity.reaktor.internal.types.stream.BeginFW;
@@ -51,6 +52,11 @@ final class Target implements Nukleus
     private final MessageHandler readHandler;
     private final MessageConsumer writeHandler;
     private final ToIntFunction<MessageHandler> throttleBuffer;
+    private final Runnable updateGauges;
+    private final Runnable streamsRejects;
+    private final Runnable checkStalled;
+    private final RecorderLayout recorder;
+    private final MessageConsumer frameRecorder;
 
     private MessagePredicate streamsBuffer;
 
@@ -59,23 +65,36 @@ final class Target implements Nukleus
         String targetName,
         StreamsLayout layout,
         MutableDirectBuffer writeBuffer,
-        boolean timestamps)
+        boolean timestamps,
+        Runnable updateGauges,
+        Runnable streamsRejects,
+        int writeRetries,
+        Runnable checkStalled,
+        RecorderLayout recorder)
     {
         this.nukleusName = nukleusName;
         this.targetName = targetName;
         this.layout = layout;
         this.writeBuffer = writeBuffer;
         this.timestamps = timestamps;
-        this.streamsBuffer = layout.streamsBuffer()::write;
+        this.streamsBuffer = RingGauges.retryWrite(layout.streamsBuffer()::write, writeRetries, streamsRejects);
         this.throttleBuffer = layout.throttleBuffer()::read;
         this.throttles = new Long2ObjectHashMap<>();
         this.readHandler = this::handleRead;
         this.writeHandler = this::handleWrite;
+        this.updateGauges = updateGauges;
+        this.streamsRejects = streamsRejects;
+        this.checkStalled = checkStalled;
+        this.recorder = recorder;
+        this.frameRecorder = recorder != null ? this::recordFrame : (t, b, i, l) -> {};
     }
 
     @Override
     public int process()
     {
+        updateGauges.run();
+        checkStalled.run();
+
         return throttleBuffer.applyAsInt(readHandler);
     }
 
@@ -90,6 +109,11 @@ final class Target implements Nukleus
         throttles.forEach(this::doReset);
 
         layout.close();
+
+        if (recorder != null)
+        {
+            recorder.close();
+        }
     }
 
     @Override
@@ -129,6 +153,8 @@ final class Target implements Nukleus
             ((MutableDirectBuffer) buffer).putLong(index + FIELD_OFFSET_TIMESTAMP, System.nanoTime());
         }
 
+        frameRecorder.accept(msgTypeId, buffer, index, length);
+
         switch (msgTypeId)
         {
         case BeginFW.TYPE_ID:
@@ -156,6 +182,7 @@ final class Target implements Nukleus
 
         if (!handled)
         {
+            streamsRejects.run();
             throw new IllegalStateException("Unable to write to streams buffer");
         }
     }
@@ -166,6 +193,7 @@ final class Target implements Nukleus
         int index,
         int length)
     {
+        frameRecorder.accept(msgTypeId, buffer, index, length);
         frameRO.wrap(buffer, index, index + length);
 
         final long streamId = frameRO.streamId();
@@ -191,12 +219,23 @@ final class Target implements Nukleus
         }
         catch (Throwable ex)
         {
-            ex.addSuppressed(new Exception(String.format("[%s/%s]\t[0x%016x] %s",
-                                                         targetName, nukleusName, streamId, layout)));
+            ex.addSuppressed(new Exception(String.format("[%s/%s]\t[0x%016x] %s%s",
+                                                         targetName, nukleusName, streamId, layout,
+                                                         recorder != null ? recorder : "")));
             rethrowUnchecked(ex);
         }
     }
 
+    private void recordFrame(
+        int msgTypeId,
+        DirectBuffer buffer,
+        int index,
+        int length)
+    {
+        final FrameFW frame = frameRO.wrap(buffer, index, index + length);
+        recorder.record(msgTypeId, frame.streamId(), length, frame.timestamp(), frame.trace());
+    }
+
     private void doReset(
         long throttleId,
         MessageConsumer throttle)
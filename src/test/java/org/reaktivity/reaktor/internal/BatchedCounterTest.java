@@ -0,0 +1,71 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
+import org.junit.Test;
+
+public class BatchedCounterTest
+{
+    private final CountersManager manager = new CountersManager(
+            new UnsafeBuffer(new byte[16 * 1024]),
+            new UnsafeBuffer(new byte[4 * 1024]));
+
+    @Test
+    public void shouldPublishIncrementsOnlyWhenFlushed() throws Exception
+    {
+        try (Counters counters = new Counters(manager))
+        {
+            BatchedCounter acquires = counters.batchedCounter("acquires");
+
+            acquires.increment();
+            acquires.increment();
+
+            assertEquals(0L, counters.counter("acquires").get());
+            assertEquals(2L, acquires.get());
+
+            counters.flush();
+
+            assertEquals(2L, counters.counter("acquires").get());
+            assertEquals(2L, acquires.get());
+
+            acquires.increment();
+            counters.flush();
+            counters.flush();
+
+            assertEquals(3L, counters.counter("acquires").get());
+        }
+    }
+
+    @Test
+    public void shouldPublishToReadersWhenFlushed() throws Exception
+    {
+        try (Counters writer = new Counters(manager);
+             Counters reader = new Counters(new CountersManager(manager.metaDataBuffer(), manager.valuesBuffer())))
+        {
+            writer.batchedCounter("releases").increment();
+
+            assertEquals(0L, reader.readonlyCounter("releases").getAsLong());
+
+            writer.flush();
+
+            assertEquals(1L, reader.readonlyCounter("releases").getAsLong());
+        }
+    }
+}
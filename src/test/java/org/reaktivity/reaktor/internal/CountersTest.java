@@ -0,0 +1,175 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
+import org.junit.Test;
+
+public class CountersTest
+{
+    private final CountersManager manager = new CountersManager(
+            new UnsafeBuffer(new byte[64 * 1024]),
+            new UnsafeBuffer(new byte[16 * 1024]));
+
+    @Test
+    public void shouldIndexCountersAllocatedAfterLookup() throws Exception
+    {
+        try (Counters writer = new Counters(manager);
+             Counters reader = new Counters(new CountersManager(manager.metaDataBuffer(), manager.valuesBuffer())))
+        {
+            writer.counter("first").increment();
+
+            assertEquals(1L, reader.readonlyCounter("first").getAsLong());
+            assertEquals(0L, reader.readonlyCounter("second").getAsLong());
+
+            writer.counter("second").add(2L);
+
+            assertEquals(2L, reader.readonlyCounter("second").getAsLong());
+            assertEquals(1L, reader.readonlyCounter("first").getAsLong());
+        }
+    }
+
+    @Test
+    public void shouldReuseFreedCounterAfterCooldown() throws Exception
+    {
+        final long[] now = { 0L };
+
+        try (Counters writer = new Counters(manager, 100L, () -> now[0], 0);
+             Counters reader = new Counters(new CountersManager(manager.metaDataBuffer(), manager.valuesBuffer())))
+        {
+            final ScopedCounter route1 = writer.scopedCounter("route.1");
+            route1.increment();
+            assertEquals(1L, reader.readonlyCounter("route.1").getAsLong());
+
+            assertTrue(writer.free("route.1"));
+            now[0] = 50L;
+            assertEquals(0, writer.reclaim());
+            assertEquals(1L, reader.readonlyCounter("route.1").getAsLong());
+
+            now[0] = 100L;
+            assertEquals(1, writer.reclaim());
+            assertEquals(1L, reader.readonlyCounter("counters.reclaimed").getAsLong());
+
+            writer.scopedCounter("route.2").increment();
+            route1.increment();
+
+            assertEquals(0L, reader.readonlyCounter("route.1").getAsLong());
+            assertEquals(1L, reader.readonlyCounter("route.2").getAsLong());
+        }
+    }
+
+    @Test
+    public void shouldNotWriteReusedCounterFromFreedHolder() throws Exception
+    {
+        try (Counters writer = new Counters(manager))
+        {
+            final ScopedCounter stale = writer.scopedCounter("route.1");
+            stale.increment();
+
+            assertTrue(writer.free("route.1"));
+            assertEquals(1, writer.reclaim());
+
+            final ScopedCounter reused = writer.scopedCounter("route.2");
+            stale.increment();
+            stale.decrement();
+
+            assertEquals(0L, reused.get());
+            assertEquals(0L, stale.get());
+        }
+    }
+
+    @Test
+    public void shouldRefuseToFreeSharedCounters() throws Exception
+    {
+        try (Counters writer = new Counters(manager))
+        {
+            final LongSupplier supplied = writer.supplyCounter("supplied", false);
+            writer.batchedCounter("batched");
+            writer.histogram("histogram").record(1L);
+
+            assertFalse(writer.free("supplied"));
+            assertFalse(writer.free("batched"));
+            assertFalse(writer.free("histogram.count"));
+            assertEquals(0, writer.reclaim());
+
+            assertEquals(1L, supplied.getAsLong());
+        }
+    }
+
+    @Test
+    public void shouldSupplySingleWriterCounterAndAccumulator() throws Exception
+    {
+        try (Counters writer = new Counters(manager))
+        {
+            final LongSupplier counter = writer.supplyCounter("frames", true);
+            final LongConsumer accumulator = writer.supplyAccumulator("bytes", true);
+
+            assertEquals(1L, counter.getAsLong());
+            assertEquals(2L, counter.getAsLong());
+            accumulator.accept(10L);
+            accumulator.accept(5L);
+
+            assertSame(writer.counter("frames"), writer.counter("frames"));
+            assertEquals(2L, writer.counter("frames").get());
+            assertEquals(15L, writer.counter("bytes").get());
+        }
+    }
+
+    @Test
+    public void shouldSumStripedCounterAcrossThreads() throws Exception
+    {
+        try (Counters writer = new Counters(manager, 0L, System::nanoTime, 3);
+             Counters reader = new Counters(new CountersManager(manager.metaDataBuffer(), manager.valuesBuffer())))
+        {
+            final LongSupplier streams = writer.supplyCounter("streams", false);
+            final LongConsumer bytes = writer.supplyAccumulator("bytes", false);
+
+            final Thread[] threads = new Thread[4];
+            for (int i = 0; i < threads.length; i++)
+            {
+                threads[i] = new Thread(() ->
+                {
+                    for (int j = 0; j < 1000; j++)
+                    {
+                        streams.getAsLong();
+                        bytes.accept(2L);
+                    }
+                });
+                threads[i].start();
+            }
+
+            for (Thread thread : threads)
+            {
+                thread.join();
+            }
+
+            assertEquals(4000L, writer.stripedCounter("streams").get());
+            assertEquals(4000L, reader.readonlyCounter("streams").getAsLong());
+            assertEquals(0L, reader.readonlyCounter("missing").getAsLong());
+            assertEquals(8000L, reader.readonlyCounter("bytes").getAsLong());
+            assertEquals(4000L, reader.readonlyCounter("streams").getAsLong());
+        }
+    }
+}
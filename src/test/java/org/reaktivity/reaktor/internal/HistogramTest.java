@@ -0,0 +1,74 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.CountersManager;
+import org.junit.Test;
+
+public class HistogramTest
+{
+    @Test
+    public void shouldMapBucketLowerBounds() throws Exception
+    {
+        for (int bucket = 0; bucket < Histogram.BUCKETS; bucket++)
+        {
+            final long lowerBound = Histogram.bucketLowerBound(bucket);
+            assertEquals(bucket, Histogram.bucket(lowerBound));
+            if (bucket > 0)
+            {
+                assertEquals(bucket - 1, Histogram.bucket(lowerBound - 1));
+            }
+        }
+
+        assertEquals(Histogram.BUCKETS - 1, Histogram.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldRecordAndReadHistogram() throws Exception
+    {
+        CountersManager manager = new CountersManager(
+                new UnsafeBuffer(new byte[64 * 1024]),
+                new UnsafeBuffer(new byte[16 * 1024]));
+        try (Counters counters = new Counters(manager))
+        {
+            Histogram histogram = counters.histogram("frame.size");
+
+            histogram.record(3);
+            histogram.record(1000);
+            histogram.record(1023);
+            histogram.record(1024);
+
+            long[] snapshot = counters.readonlyHistogram("frame.size", new long[Histogram.BUCKETS]);
+
+            assertEquals(1L, snapshot[Histogram.bucket(3)]);
+            assertEquals(2L, snapshot[Histogram.bucket(1000)]);
+            assertEquals(1L, snapshot[Histogram.bucket(1024)]);
+            assertEquals(4L, counters.readonlyCounter("frame.size.count").getAsLong());
+            assertEquals(3050L, counters.readonlyCounter("frame.size.sum").getAsLong());
+            assertEquals(2L, counters.readonlyCounter("frame.size.896").getAsLong());
+
+            histogram.record(5);
+
+            assertSame(snapshot, counters.readonlyHistogram("frame.size", snapshot));
+            assertEquals(1L, snapshot[Histogram.bucket(5)]);
+            assertEquals(1L, snapshot[Histogram.bucket(3)]);
+        }
+    }
+}
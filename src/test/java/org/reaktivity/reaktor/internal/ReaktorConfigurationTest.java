@@ -0,0 +1,45 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.reaktivity.reaktor.internal.ReaktorConfiguration.STREAMS_BUFFER_CAPACITY_PROPERTY_NAME;
+import static org.reaktivity.reaktor.internal.ReaktorConfiguration.THROTTLE_BUFFER_CAPACITY_PROPERTY_NAME;
+
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class ReaktorConfigurationTest
+{
+    @Test
+    public void shouldResolveRingCapacityPerSourceThenPerNukleus() throws Exception
+    {
+        Properties properties = new Properties();
+        properties.setProperty(STREAMS_BUFFER_CAPACITY_PROPERTY_NAME, "8192");
+        properties.setProperty(STREAMS_BUFFER_CAPACITY_PROPERTY_NAME + ".example", "16384");
+        properties.setProperty(STREAMS_BUFFER_CAPACITY_PROPERTY_NAME + ".example.source", "32768");
+        properties.setProperty(THROTTLE_BUFFER_CAPACITY_PROPERTY_NAME + ".example.source", "4096");
+
+        ReaktorConfiguration config = new ReaktorConfiguration(properties);
+
+        assertEquals(32768, config.streamsBufferCapacity("example", "source"));
+        assertEquals(16384, config.streamsBufferCapacity("example", "other"));
+        assertEquals(8192, config.streamsBufferCapacity("other", "source"));
+        assertEquals(4096, config.throttleBufferCapacity("example", "source"));
+        assertEquals(config.throttleBufferCapacity(), config.throttleBufferCapacity("example", "other"));
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.reaktivity.nukleus.buffer.BufferPool.NO_SLOT;
+
+import org.junit.Test;
+import org.reaktivity.nukleus.buffer.BufferPool;
+
+public class CountingBufferPoolTest
+{
+    @Test
+    public void metricsShouldRecordOccupancyAndFailures() throws Exception
+    {
+        BufferPoolMetrics metrics = new BufferPoolMetrics(4);
+        BufferPool pool = new CountingBufferPool(new DefaultBufferPool(32, 16), () -> 0L, () -> 0L, metrics);
+        int slot1 = pool.acquire(1);
+        int slot2 = pool.duplicate().acquire(2);
+        assertEquals(NO_SLOT, pool.acquire(3));
+        pool.release(slot1);
+        pool.release(slot2);
+
+        assertEquals(2, metrics.peakAcquiredSlots());
+        assertEquals(1L, metrics.acquireFailures());
+        assertEquals(2L, held(metrics));
+    }
+
+    @Test
+    public void metricsShouldOnlyRecordSlotsAcquiredByTheirNukleus() throws Exception
+    {
+        BufferPool core = new DefaultBufferPool(64, 16);
+        BufferPoolMetrics metrics0 = new BufferPoolMetrics(4);
+        BufferPoolMetrics metrics1 = new BufferPoolMetrics(4);
+        BufferPool pool0 = new CountingBufferPool(core, () -> 0L, () -> 0L, metrics0);
+        BufferPool pool1 = new CountingBufferPool(core.duplicate(), () -> 0L, () -> 0L, metrics1);
+
+        pool0.acquire(1);
+        pool0.acquire(2);
+        int slot = pool1.acquire(3);
+        pool1.release(slot);
+
+        assertEquals(2, metrics0.peakAcquiredSlots());
+        assertEquals(1, metrics1.peakAcquiredSlots());
+        assertEquals(0L, held(metrics0));
+        assertEquals(1L, held(metrics1));
+    }
+
+    private static long held(
+        BufferPoolMetrics metrics)
+    {
+        long held = 0L;
+        for (int bucket = 0; bucket < BufferPoolMetrics.BUCKETS; bucket++)
+        {
+            held += metrics.heldCount(bucket);
+        }
+        return held;
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+import org.reaktivity.nukleus.buffer.BufferPool;
+
+public class ElasticBufferPoolTest
+{
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMaxCapacityLessThanSlabCapacity()
+    {
+        new ElasticBufferPool(256, 128, 16, 90, 50);
+    }
+
+    @Test
+    public void acquireShouldAddSlabAtHighWatermark() throws Exception
+    {
+        ElasticBufferPool pool = new ElasticBufferPool(64, 256, 16, 75, 25);
+        assertEquals(64L, pool.footprint());
+
+        pool.acquire(1);
+        pool.acquire(2);
+        assertEquals(64L, pool.footprint());
+
+        pool.acquire(3);
+        assertEquals(128L, pool.footprint());
+    }
+
+    @Test
+    public void acquireShouldReportOutOfMemoryAtMaxCapacity() throws Exception
+    {
+        ElasticBufferPool pool = new ElasticBufferPool(64, 128, 16, 100, 0);
+        for (int i = 0; i < 8; i++)
+        {
+            assertNotEquals(BufferPool.NO_SLOT, pool.acquire(i));
+        }
+        assertEquals(BufferPool.NO_SLOT, pool.acquire(8));
+        assertEquals(128L, pool.footprint());
+    }
+
+    @Test
+    public void releaseShouldReturnSlabBelowLowWatermark() throws Exception
+    {
+        ElasticBufferPool pool = new ElasticBufferPool(64, 128, 16, 100, 50);
+        int[] slots = new int[5];
+        for (int i = 0; i < slots.length; i++)
+        {
+            slots[i] = pool.acquire(i);
+        }
+        assertEquals(128L, pool.footprint());
+
+        pool.buffer(slots[4]).putInt(0, 123);
+        assertEquals(123, pool.duplicate().buffer(slots[4]).getInt(0));
+        assertEquals(16, pool.byteBuffer(slots[4]).remaining());
+
+        pool.release(slots[4]);
+        assertEquals(128L, pool.footprint());
+
+        pool.release(slots[3]);
+        pool.release(slots[2]);
+        assertEquals(128L, pool.footprint());
+
+        pool.release(slots[1]);
+        assertEquals(64L, pool.footprint());
+        assertEquals(1, pool.acquiredSlots());
+    }
+}
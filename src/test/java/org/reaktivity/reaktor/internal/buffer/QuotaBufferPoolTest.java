@@ -0,0 +1,44 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.reaktivity.nukleus.buffer.BufferPool;
+
+public class QuotaBufferPoolTest
+{
+    @Test
+    public void acquireShouldDenySlotBeyondQuota() throws Exception
+    {
+        DefaultBufferPool pool = new DefaultBufferPool(256, 16);
+        AtomicLong denials = new AtomicLong();
+        BufferPool quota = new QuotaBufferPool(pool, pool::acquiredSlots, 2, denials::incrementAndGet);
+
+        int slot = quota.acquire(1);
+        assertNotEquals(BufferPool.NO_SLOT, slot);
+        assertNotEquals(BufferPool.NO_SLOT, quota.acquire(2));
+        assertEquals(BufferPool.NO_SLOT, quota.acquire(3));
+        assertEquals(1L, denials.get());
+
+        quota.release(slot);
+        assertNotEquals(BufferPool.NO_SLOT, quota.duplicate().acquire(4));
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.reaktivity.nukleus.buffer.BufferPool;
+
+public class SharedBufferPoolTest
+{
+    @Test
+    public void acquireShouldAllocateSlotsAcrossCores() throws Exception
+    {
+        SharedBufferPool shared = new SharedBufferPool(256, 16, 4, 2);
+        BufferPool core1 = shared.newCorePool();
+        BufferPool core2 = shared.newCorePool();
+
+        int slot1 = core1.acquire(1);
+        int slot2 = core2.acquire(2);
+
+        assertTrue(slot1 >= 0 && slot1 < 16);
+        assertTrue(slot2 >= 0 && slot2 < 16);
+        assertNotEquals(slot1, slot2);
+        assertEquals(1, core1.acquiredSlots());
+        assertEquals(1, core2.acquiredSlots());
+    }
+
+    @Test
+    public void acquireShouldAllowOneCoreToUseAllSlots() throws Exception
+    {
+        SharedBufferPool shared = new SharedBufferPool(256, 16, 4, 2);
+        BufferPool core1 = shared.newCorePool();
+        BufferPool core2 = shared.newCorePool();
+
+        for (int i = 0; i < 16; i++)
+        {
+            assertNotEquals(BufferPool.NO_SLOT, core1.acquire(i));
+        }
+
+        assertEquals(BufferPool.NO_SLOT, core1.acquire(16));
+        assertEquals(BufferPool.NO_SLOT, core2.acquire(17));
+    }
+
+    @Test
+    public void releaseShouldReturnSlotsToOtherCores() throws Exception
+    {
+        SharedBufferPool shared = new SharedBufferPool(256, 16, 4, 2);
+        BufferPool core1 = shared.newCorePool();
+        BufferPool core2 = shared.newCorePool();
+
+        int[] slots = new int[16];
+        for (int i = 0; i < slots.length; i++)
+        {
+            slots[i] = core1.acquire(i);
+        }
+        for (int i = 0; i < slots.length; i++)
+        {
+            core1.release(slots[i]);
+        }
+
+        assertEquals(0, core1.acquiredSlots());
+
+        for (int i = 0; i < 8; i++)
+        {
+            assertNotEquals(BufferPool.NO_SLOT, core2.acquire(i));
+        }
+    }
+
+    @Test
+    public void releaseShouldHandBackIdleSlotsWhenCoresTakeTurns() throws Exception
+    {
+        SharedBufferPool shared = new SharedBufferPool(256, 16, 64, 2);
+        BufferPool[] cores = { shared.newCorePool(), shared.newCorePool() };
+        int[] slots = new int[16];
+
+        assertEquals(2, shared.magazineCapacity());
+
+        for (int turn = 0; turn < 4; turn++)
+        {
+            BufferPool core = cores[turn % cores.length];
+            int acquires = turn == 0 ? 3 : slots.length;
+
+            for (int i = 0; i < acquires; i++)
+            {
+                slots[i] = core.acquire(i);
+                assertNotEquals(BufferPool.NO_SLOT, slots[i]);
+            }
+            for (int i = 0; i < acquires; i++)
+            {
+                core.release(slots[i]);
+            }
+
+            assertEquals(0, core.acquiredSlots());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectFewerThanFourSlotsPerCore() throws Exception
+    {
+        new SharedBufferPool(256, 16, 4, 8);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectMoreCorePoolsThanCores() throws Exception
+    {
+        SharedBufferPool shared = new SharedBufferPool(256, 16, 4, 1);
+        shared.newCorePool();
+        shared.newCorePool();
+    }
+
+    @Test
+    public void bufferShouldReturnCorrectlySizedBuffer() throws Exception
+    {
+        SharedBufferPool shared = new SharedBufferPool(256, 16, 4, 1);
+        BufferPool core = shared.newCorePool();
+        int slot = core.acquire(1);
+        core.buffer(slot).putInt(0, 123);
+        assertEquals(123, core.duplicate().buffer(slot).getInt(0));
+        assertEquals(16, core.buffer(slot).capacity());
+    }
+}
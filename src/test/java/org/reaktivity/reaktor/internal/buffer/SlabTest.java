@@ -19,6 +19,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+
 import org.agrona.MutableDirectBuffer;
 import org.junit.Test;
 
@@ -122,5 +124,43 @@ public class SlabTest
         assertNotEquals(DefaultBufferPool.NO_SLOT, slot);
     }
 
+    @Test
+    public void bufferShouldUseProvidedSlab() throws Exception
+    {
+        ByteBuffer slab = ByteBuffer.allocateDirect(256);
+        DefaultBufferPool pool = new DefaultBufferPool(slab, 16);
+        int slot = pool.acquire(1);
+        pool.byteBuffer(slot).putInt(123);
+        assertEquals(123, slab.getInt(slot * 16));
+        assertEquals(16, pool.buffer(slot).capacity());
+    }
+
+    @Test
+    public void acquiredSlotsShouldCountAcquiredSlots() throws Exception
+    {
+        DefaultBufferPool slab = new DefaultBufferPool(16 * 1024, 1024);
+        int slot1 = slab.acquire(111);
+        int slot2 = slab.acquire(112);
+        assertEquals(2, slab.acquiredSlots());
+        slab.release(slot1);
+        assertEquals(1, slab.acquiredSlots());
+        slab.release(slot2);
+        assertEquals(0, slab.acquiredSlots());
+    }
+
+    @Test
+    public void duplicateShouldShareSlots() throws Exception
+    {
+        DefaultBufferPool slab = new DefaultBufferPool(256, 16);
+        DefaultBufferPool duplicate = (DefaultBufferPool) slab.duplicate();
+        for (int i = 0; i < 8; i++)
+        {
+            assertTrue(slab.acquire(111 + i) >= 0);
+            assertTrue(duplicate.acquire(211 + i) >= 0);
+        }
+        assertEquals(16, slab.acquiredSlots());
+        assertEquals(DefaultBufferPool.NO_SLOT, duplicate.acquire(311));
+    }
+
 }
 
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.buffer;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TrackingBufferPoolTest
+{
+    @Test
+    public void shouldDescribeHeldSlotsOldestFirst() throws Exception
+    {
+        TrackingBufferPool pool = new TrackingBufferPool(new DefaultBufferPool(256, 16), 1, SECONDS.toNanos(1L));
+        int slot1 = pool.acquire(0x11L);
+        int slot2 = pool.acquire(0x22L);
+
+        String description = pool.describe(System.nanoTime(), 0L);
+
+        assertTrue(description.indexOf("slot=" + slot1) < description.indexOf("slot=" + slot2));
+        assertTrue(description.contains("stream=0x0000000000000011"));
+        assertTrue(description.contains("TrackingBufferPoolTest"));
+
+        pool.release(slot1);
+        pool.release(slot2);
+
+        assertEquals("", pool.describe(System.nanoTime(), 0L));
+    }
+
+    @Test
+    public void shouldReportLongHeldSlotsOncePerTimeout() throws Exception
+    {
+        final long timeout = SECONDS.toNanos(1L);
+        TrackingBufferPool pool = new TrackingBufferPool(new DefaultBufferPool(256, 16), 0, timeout);
+        pool.duplicate().acquire(0x11L);
+
+        final long now = System.nanoTime();
+        assertNull(pool.checkLongHeld(now));
+
+        String report = pool.checkLongHeld(now + timeout);
+        assertTrue(report.contains("stream=0x0000000000000011"));
+        assertNull(pool.checkLongHeld(now + timeout));
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.layouts;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+public class CaptureLayoutTest
+{
+    private static final Path DIRECTORY = Paths.get("target/nukleus-tests/capture");
+
+    @Test
+    public void shouldRotateNonEmptyCaptureInsteadOfOverwriting() throws Exception
+    {
+        IoUtil.delete(DIRECTORY.toFile(), true);
+
+        final CaptureLayout.Builder captureRW = new CaptureLayout.Builder()
+                .path(DIRECTORY.resolve("capture"))
+                .capacity(1024)
+                .readonly(false);
+
+        try (CaptureLayout capture = captureRW.build())
+        {
+            capture.capture(0x00000002, new UnsafeBuffer(new byte[8]), 0, 8, 0L);
+        }
+
+        try (CaptureLayout capture = captureRW.build())
+        {
+            assertEquals(0L, capture.position());
+        }
+
+        try (CaptureLayout capture = captureRW.build())
+        {
+            assertEquals(0L, capture.position());
+        }
+
+        final File[] rotated = DIRECTORY.toFile().listFiles((d, n) -> n.startsWith("capture."));
+        assertEquals(1, rotated.length);
+
+        try (CaptureLayout capture = new CaptureLayout.Builder()
+                .path(rotated[0].toPath())
+                .readonly(true)
+                .build())
+        {
+            assertTrue(capture.position() != 0L);
+            assertEquals(1, capture.forEach((t, b, i, l, ts) -> {}));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.layouts;
+
+import static org.agrona.IoUtil.mapExistingFile;
+import static org.agrona.IoUtil.unmap;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GroupBudgetsLayoutTest
+{
+    private final Path path = Paths.get("target/nukleus-tests/budgets-layout");
+
+    private final GroupBudgetsLayout.Builder budgetsRW = new GroupBudgetsLayout.Builder()
+            .path(path)
+            .capacity(4);
+
+    @Before
+    public void deleteBudgets() throws Exception
+    {
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    public void shouldKeepBudgetsWhenReopened() throws Exception
+    {
+        try (GroupBudgetsLayout budgets = budgetsRW.readonly(false).build())
+        {
+            assertEquals(100, budgets.release(1L, 100));
+        }
+
+        try (GroupBudgetsLayout budgets = budgetsRW.readonly(false).build())
+        {
+            assertEquals(100, budgets.budget(1L));
+        }
+    }
+
+    @Test
+    public void shouldTakeOverLockLeftBehind() throws Exception
+    {
+        try (GroupBudgetsLayout budgets0 = budgetsRW.readonly(false).build();
+             GroupBudgetsLayout budgets1 = budgetsRW.readonly(true).build())
+        {
+            lock(System.currentTimeMillis() / 1000L - 60L);
+
+            assertEquals(100, budgets0.release(1L, 100));
+            assertEquals(100, budgets1.budget(1L));
+        }
+    }
+
+    @Test
+    public void shouldOverflowWhileLockIsHeld() throws Exception
+    {
+        try (GroupBudgetsLayout budgets0 = budgetsRW.readonly(false).build();
+             GroupBudgetsLayout budgets1 = budgetsRW.readonly(true).build())
+        {
+            lock(System.currentTimeMillis() / 1000L);
+
+            assertEquals(100, budgets0.release(1L, 100));
+            assertEquals(0, budgets1.budget(1L));
+            assertEquals(1, budgets0.groups());
+            assertEquals(100L, budgets0.budget());
+            assertEquals(60, budgets0.claim(1L, 60));
+            assertEquals(40, budgets0.claim(1L, 60));
+            assertEquals(0L, budgets0.budget());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectMismatchedCapacity() throws Exception
+    {
+        budgetsRW.readonly(false).build().close();
+        budgetsRW.capacity(8).readonly(false).build();
+    }
+
+    private void lock(
+        long seconds)
+    {
+        final MappedByteBuffer mapped = mapExistingFile(path.toFile(), "budgets");
+        try
+        {
+            new UnsafeBuffer(mapped).putLongVolatile(0, (1L << 32) | seconds);
+        }
+        finally
+        {
+            unmap(mapped);
+        }
+    }
+}
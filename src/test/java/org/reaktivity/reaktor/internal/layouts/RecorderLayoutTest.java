@@ -0,0 +1,77 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.layouts;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RecorderLayoutTest
+{
+    @Test
+    public void shouldKeepMostRecentRecordsAfterWraparound() throws Exception
+    {
+        try (RecorderLayout recorder = new RecorderLayout.Builder()
+                .path(Paths.get("target/nukleus-tests/recorder"))
+                .capacity(4)
+                .readonly(false)
+                .build())
+        {
+            for (int i = 1; i <= 6; i++)
+            {
+                recorder.record(i, 0x10L + i, i * 10, i * 100L, i * 1000L);
+            }
+
+            final List<Long> streamIds = new ArrayList<>();
+            recorder.forEach((t, s, l, ts, tr) ->
+            {
+                assertEquals(t * 10, l);
+                assertEquals(t * 100L, ts);
+                assertEquals(t * 1000L, tr);
+                streamIds.add(s);
+            });
+
+            assertEquals(6L, recorder.position());
+            assertEquals(4, streamIds.size());
+            assertEquals(0x13L, streamIds.get(0).longValue());
+            assertEquals(0x16L, streamIds.get(3).longValue());
+        }
+    }
+
+    @Test
+    public void shouldReadRecordsBeforeWraparound() throws Exception
+    {
+        try (RecorderLayout recorder = new RecorderLayout.Builder()
+                .path(Paths.get("target/nukleus-tests/recorder"))
+                .capacity(4)
+                .readonly(false)
+                .build())
+        {
+            recorder.record(1, 0x11L, 10, 100L, 1000L);
+            recorder.record(2, 0x12L, 20, 200L, 2000L);
+
+            final List<Long> streamIds = new ArrayList<>();
+            recorder.forEach((t, s, l, ts, tr) -> streamIds.add(s));
+
+            assertEquals(2, streamIds.size());
+            assertEquals(0x11L, streamIds.get(0).longValue());
+        }
+    }
+}
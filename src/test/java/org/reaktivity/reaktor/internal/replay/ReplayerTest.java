@@ -0,0 +1,142 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.replay;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.NoOpIdleStrategy;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+import org.reaktivity.reaktor.internal.layouts.CaptureLayout;
+import org.reaktivity.reaktor.internal.layouts.StreamsLayout;
+
+public class ReplayerTest
+{
+    private static final Path DIRECTORY = Paths.get("target/nukleus-tests/replay");
+
+    @Test
+    public void shouldReplayCapturedFrames() throws Exception
+    {
+        final UnsafeBuffer frame = new UnsafeBuffer(new byte[24]);
+
+        try (CaptureLayout capture = new CaptureLayout.Builder()
+                .path(DIRECTORY.resolve("capture"))
+                .capacity(1024)
+                .readonly(false)
+                .build();
+             StreamsLayout streams = new StreamsLayout.Builder()
+                .path(DIRECTORY.resolve("streams"))
+                .streamsCapacity(8192)
+                .throttleCapacity(8192)
+                .readonly(false)
+                .build())
+        {
+            for (int i = 0; i < 3; i++)
+            {
+                frame.putLong(0, i);
+                capture.capture(0x00000002, frame, 0, 8 + i, 1000L * i);
+            }
+
+            final Replayer replayer = new Replayer(capture, streams, 0.0, 0L, new NoOpIdleStrategy());
+
+            assertEquals(3, replayer.replay());
+
+            final long[] expected = new long[1];
+            final int replayed = streams.streamsBuffer().read((t, b, i, l) ->
+            {
+                assertEquals(0x00000002, t);
+                assertEquals(8 + expected[0], l);
+                assertEquals(expected[0]++, b.getLong(i));
+            });
+
+            assertEquals(3, replayed);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRefuseReplayWhileSourceHasAnotherProducer() throws Exception
+    {
+        final UnsafeBuffer frame = new UnsafeBuffer(new byte[24]);
+
+        try (CaptureLayout capture = new CaptureLayout.Builder()
+                .path(DIRECTORY.resolve("capture.shared"))
+                .capacity(1024)
+                .readonly(false)
+                .build();
+             StreamsLayout streams = new StreamsLayout.Builder()
+                .path(DIRECTORY.resolve("streams.shared"))
+                .streamsCapacity(8192)
+                .throttleCapacity(8192)
+                .readonly(false)
+                .build())
+        {
+            capture.capture(0x00000002, frame, 0, frame.capacity(), 0L);
+
+            final IdleStrategy producer = new IdleStrategy()
+            {
+                @Override
+                public void idle(
+                    int workCount)
+                {
+                    idle();
+                }
+
+                @Override
+                public void idle()
+                {
+                    streams.streamsBuffer().write(0x00000002, frame, 0, frame.capacity());
+                }
+
+                @Override
+                public void reset()
+                {
+                }
+            };
+
+            final Replayer replayer = new Replayer(capture, streams, 0.0, MILLISECONDS.toNanos(1L), producer);
+
+            replayer.replay();
+        }
+    }
+
+    @Test
+    public void shouldDropFramesWhenCaptureIsFull() throws Exception
+    {
+        final UnsafeBuffer frame = new UnsafeBuffer(new byte[24]);
+
+        try (CaptureLayout capture = new CaptureLayout.Builder()
+                .path(DIRECTORY.resolve("capture.full"))
+                .capacity(80)
+                .readonly(false)
+                .build())
+        {
+            int captured = 0;
+            for (int i = 0; i < 4; i++)
+            {
+                captured += capture.capture(0x00000002, frame, 0, frame.capacity(), 0L) ? 1 : 0;
+            }
+
+            assertEquals(2, captured);
+            assertEquals(2L, capture.drops());
+            assertEquals(80L, capture.position());
+        }
+    }
+}
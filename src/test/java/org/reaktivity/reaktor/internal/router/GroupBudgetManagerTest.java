@@ -0,0 +1,295 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.reaktivity.reaktor.internal.ReaktorConfiguration.GROUP_BUDGETS_HANDLES_DEFAULT;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.IntUnaryOperator;
+
+import org.junit.Test;
+import org.reaktivity.reaktor.internal.layouts.GroupBudgetsLayout;
+
+public class GroupBudgetManagerTest
+{
+    @Test
+    public void shouldClaimReleasedBudget() throws Exception
+    {
+        GroupBudgetManager manager = new GroupBudgetManager();
+        IntUnaryOperator claim = manager.claim(1L);
+        IntUnaryOperator release = manager.release(1L);
+
+        assertEquals(0, claim.applyAsInt(100));
+        assertEquals(100, release.applyAsInt(100));
+        assertEquals(60, claim.applyAsInt(60));
+        assertEquals(40, claim.applyAsInt(60));
+        assertEquals(0, claim.applyAsInt(60));
+        assertEquals(10, release.applyAsInt(10));
+        assertEquals(10, claim.applyAsInt(60));
+    }
+
+    @Test
+    public void shouldShareReleasedBudgetAcrossClaimingMembers() throws Exception
+    {
+        GroupBudgetManager manager = new GroupBudgetManager(GROUP_BUDGETS_HANDLES_DEFAULT, null, true, 0);
+        IntUnaryOperator claimA = manager.claim(1L);
+        IntUnaryOperator claimB = manager.claim(1L);
+        IntUnaryOperator claimC = manager.claim(1L);
+        IntUnaryOperator release = manager.release(1L);
+
+        assertEquals(90, release.applyAsInt(90));
+        assertEquals(90, claimA.applyAsInt(100));
+        assertEquals(0, claimB.applyAsInt(100));
+        assertEquals(0, claimC.applyAsInt(100));
+
+        assertEquals(90, release.applyAsInt(90));
+        assertEquals(30, claimA.applyAsInt(100));
+        assertEquals(0, claimA.applyAsInt(100));
+        assertEquals(20, claimB.applyAsInt(20));
+        assertEquals(10, claimB.applyAsInt(20));
+        assertEquals(30, claimC.applyAsInt(100));
+        assertEquals(0, claimC.applyAsInt(100));
+    }
+
+    @Test
+    public void shouldWaitOnShortClaimUntilReleased() throws Exception
+    {
+        assertWaitOnShortClaimUntilReleased(new GroupBudgetManager());
+    }
+
+    @Test
+    public void shouldWaitOnShortSharedClaimUntilReleased() throws Exception
+    {
+        Path path = Paths.get("target/nukleus-tests/budgets-waiters");
+        Files.deleteIfExists(path);
+
+        GroupBudgetsLayout.Builder budgetsRW = new GroupBudgetsLayout.Builder()
+                .path(path)
+                .capacity(4);
+
+        try (GroupBudgetsLayout budgets = budgetsRW.readonly(false).build())
+        {
+            GroupBudgetManager manager = new GroupBudgetManager(GROUP_BUDGETS_HANDLES_DEFAULT, budgets, false, 0);
+            assertWaitOnShortClaimUntilReleased(manager);
+        }
+    }
+
+    @Test
+    public void shouldWaitOnShortMemberClaimUntilReleased() throws Exception
+    {
+        GroupBudgetManager manager = new GroupBudgetManager(GROUP_BUDGETS_HANDLES_DEFAULT, null, true, 0);
+        IntUnaryOperator claimA = manager.claim(1L);
+        IntUnaryOperator claimB = manager.claim(1L);
+        IntUnaryOperator release = manager.release(1L);
+
+        assertEquals(0, claimA.applyAsInt(50));
+        assertEquals(0, claimB.applyAsInt(50));
+        assertEquals(0, claimB.applyAsInt(50));
+        assertEquals(2L, manager.waiting());
+
+        release.applyAsInt(100);
+        assertEquals(0L, manager.waiting());
+        assertEquals(50, claimA.applyAsInt(50));
+        assertEquals(0L, manager.waiting());
+    }
+
+    private static void assertWaitOnShortClaimUntilReleased(
+        GroupBudgetManager manager)
+    {
+        IntUnaryOperator claim = manager.claim(1L);
+        IntUnaryOperator release = manager.release(1L);
+
+        assertEquals(0, claim.applyAsInt(60));
+        assertEquals(0, claim.applyAsInt(60));
+        assertEquals(1L, manager.waiting());
+
+        release.applyAsInt(100);
+        assertEquals(0L, manager.waiting());
+        assertEquals(60, claim.applyAsInt(60));
+        assertEquals(0L, manager.waiting());
+        assertEquals(40, claim.applyAsInt(60));
+        assertEquals(1L, manager.waiting());
+
+        release.applyAsInt(10);
+        assertEquals(0L, manager.waiting());
+    }
+
+    @Test
+    public void shouldSampleTopShortfalls() throws Exception
+    {
+        GroupBudgetManager manager = new GroupBudgetManager(GROUP_BUDGETS_HANDLES_DEFAULT, null, false, 2);
+
+        manager.release(1L).applyAsInt(100);
+        manager.claim(1L).applyAsInt(110);
+        manager.claim(2L).applyAsInt(30);
+        manager.claim(3L).applyAsInt(20);
+
+        assertEquals(0L, manager.budget());
+        assertEquals(100L, manager.claimed());
+        assertEquals(60L, manager.shortfall());
+        assertEquals(3L, manager.waiting());
+
+        assertEquals(2, manager.sampleShortfalls());
+        assertEquals(2L, manager.topShortfallGroupId(0));
+        assertEquals(30L, manager.topShortfall(0));
+        assertEquals(3L, manager.topShortfallGroupId(1));
+        assertEquals(20L, manager.topShortfall(1));
+        assertEquals(0, manager.sampleShortfalls());
+    }
+
+    @Test
+    public void shouldReuseHandlesForConfiguredNumberOfGroups() throws Exception
+    {
+        GroupBudgetManager manager = new GroupBudgetManager(1024, null, false, 0);
+        IntUnaryOperator[] claims = new IntUnaryOperator[1024];
+
+        for (int groupId = 1; groupId <= claims.length; groupId++)
+        {
+            claims[groupId - 1] = manager.claim(groupId);
+        }
+
+        int reused = 0;
+        for (int groupId = 1; groupId <= claims.length; groupId++)
+        {
+            reused += manager.claim(groupId) == claims[groupId - 1] ? 1 : 0;
+        }
+
+        assertTrue(reused > claims.length / 2);
+    }
+
+    @Test
+    public void shouldOverflowWhenSharedBudgetsFull() throws Exception
+    {
+        Path path = Paths.get("target/nukleus-tests/budgets-full");
+        Files.deleteIfExists(path);
+
+        GroupBudgetsLayout.Builder budgetsRW = new GroupBudgetsLayout.Builder()
+                .path(path)
+                .capacity(2);
+
+        try (GroupBudgetsLayout budgets = budgetsRW.readonly(false).build())
+        {
+            GroupBudgetManager manager = new GroupBudgetManager(GROUP_BUDGETS_HANDLES_DEFAULT, budgets, false, 0);
+
+            assertEquals(10, manager.release(1L).applyAsInt(10));
+            assertEquals(10, manager.release(2L).applyAsInt(10));
+            assertEquals(10, manager.release(3L).applyAsInt(10));
+            assertEquals(10, budgets.budget(3L));
+            assertEquals(10, manager.claim(3L).applyAsInt(60));
+            assertEquals(0, manager.claim(3L).applyAsInt(60));
+        }
+    }
+
+    @Test
+    public void shouldOverflowWhenSharedBudgetExceedsMaximum() throws Exception
+    {
+        Path path = Paths.get("target/nukleus-tests/budgets-overflow");
+        Files.deleteIfExists(path);
+
+        GroupBudgetsLayout.Builder budgetsRW = new GroupBudgetsLayout.Builder()
+                .path(path)
+                .capacity(2);
+
+        try (GroupBudgetsLayout budgets = budgetsRW.readonly(false).build())
+        {
+            GroupBudgetManager manager = new GroupBudgetManager(GROUP_BUDGETS_HANDLES_DEFAULT, budgets, false, 0);
+
+            assertEquals(Integer.MAX_VALUE, manager.release(1L).applyAsInt(Integer.MAX_VALUE));
+            assertEquals(Integer.MAX_VALUE, manager.release(1L).applyAsInt(10));
+            assertEquals(Integer.MAX_VALUE, manager.claim(1L).applyAsInt(Integer.MAX_VALUE));
+            assertEquals(10, manager.claim(1L).applyAsInt(Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void shouldReuseHandlesPerGroup() throws Exception
+    {
+        GroupBudgetManager manager = new GroupBudgetManager();
+
+        assertSame(manager.claim(1L), manager.claim(1L));
+        assertSame(manager.release(1L), manager.release(1L));
+        assertEquals(0, manager.claim(2L).applyAsInt(10));
+        assertEquals(Integer.MAX_VALUE, manager.release(0L).applyAsInt(10));
+        assertEquals(10, manager.claim(0L).applyAsInt(10));
+    }
+
+    @Test
+    public void shouldShareBudgetAcrossManagers() throws Exception
+    {
+        Path path = Paths.get("target/nukleus-tests/budgets");
+        Files.deleteIfExists(path);
+
+        GroupBudgetsLayout.Builder budgetsRW = new GroupBudgetsLayout.Builder()
+                .path(path)
+                .capacity(4);
+
+        try (GroupBudgetsLayout budgets0 = budgetsRW.readonly(false).build();
+             GroupBudgetsLayout budgets1 = budgetsRW.readonly(true).build())
+        {
+            GroupBudgetManager manager0 = new GroupBudgetManager(GROUP_BUDGETS_HANDLES_DEFAULT, budgets0, false, 0);
+            GroupBudgetManager manager1 = new GroupBudgetManager(GROUP_BUDGETS_HANDLES_DEFAULT, budgets1, false, 0);
+
+            assertEquals(100, manager0.release(1L).applyAsInt(100));
+            assertEquals(60, manager1.claim(1L).applyAsInt(60));
+            assertEquals(40, manager0.claim(1L).applyAsInt(60));
+            assertEquals(0, manager1.claim(1L).applyAsInt(60));
+
+            assertEquals(10, manager1.release(2L).applyAsInt(10));
+            assertEquals(10, manager0.release(3L).applyAsInt(10));
+            assertEquals(10, manager1.release(4L).applyAsInt(10));
+            assertEquals(10, manager0.release(5L).applyAsInt(10));
+            assertEquals(10, manager1.claim(5L).applyAsInt(60));
+            assertEquals(10, budgets0.budget(2L));
+        }
+    }
+
+    @Test
+    public void shouldReportSharedBudgetsInGauges() throws Exception
+    {
+        Path path = Paths.get("target/nukleus-tests/budgets-gauges");
+        Files.deleteIfExists(path);
+
+        GroupBudgetsLayout.Builder budgetsRW = new GroupBudgetsLayout.Builder()
+                .path(path)
+                .capacity(4);
+
+        try (GroupBudgetsLayout budgets0 = budgetsRW.readonly(false).build();
+             GroupBudgetsLayout budgets1 = budgetsRW.readonly(true).build())
+        {
+            GroupBudgetManager manager0 = new GroupBudgetManager(GROUP_BUDGETS_HANDLES_DEFAULT, budgets0, false, 0);
+            GroupBudgetManager manager1 = new GroupBudgetManager(GROUP_BUDGETS_HANDLES_DEFAULT, budgets1, false, 0);
+
+            manager0.release(1L).applyAsInt(100);
+            manager1.release(2L).applyAsInt(50);
+            manager1.claim(1L).applyAsInt(30);
+
+            assertEquals(2L, manager0.groups());
+            assertEquals(120L, manager0.budget());
+            assertEquals(2L, manager1.groups());
+            assertEquals(120L, manager1.budget());
+
+            manager0.claim(2L).applyAsInt(50);
+
+            assertEquals(1L, manager1.groups());
+            assertEquals(70L, manager1.budget());
+        }
+    }
+}
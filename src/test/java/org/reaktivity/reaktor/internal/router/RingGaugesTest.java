@@ -0,0 +1,91 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.router;
+
+import static java.nio.ByteBuffer.allocateDirect;
+import static org.agrona.concurrent.ringbuffer.RingBufferDescriptor.TRAILER_LENGTH;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.agrona.concurrent.status.CountersManager;
+import org.junit.Test;
+import org.reaktivity.nukleus.function.MessagePredicate;
+import org.reaktivity.reaktor.internal.Counters;
+
+public class RingGaugesTest
+{
+    private final RingBuffer ring = new OneToOneRingBuffer(new UnsafeBuffer(allocateDirect(1024 + TRAILER_LENGTH)));
+    private final UnsafeBuffer message = new UnsafeBuffer(new byte[24]);
+    private final CountersManager manager = new CountersManager(
+            new UnsafeBuffer(new byte[16 * 1024]),
+            new UnsafeBuffer(new byte[4 * 1024]));
+
+    @Test
+    public void shouldPublishOccupancyLagAndHighWater() throws Exception
+    {
+        try (Counters counters = new Counters(manager))
+        {
+            RingGauges gauges = new RingGauges(counters, "ring", ring);
+
+            ring.write(1, message, 0, message.capacity());
+            ring.write(1, message, 0, message.capacity());
+            gauges.update();
+
+            assertEquals(64L, counters.counter("ring.lag").get());
+            assertEquals(6L, counters.counter("ring.occupancy").get());
+            assertEquals(64L, counters.counter("ring.highwater").get());
+
+            ring.read((t, b, i, l) -> {}, 1);
+            gauges.update();
+
+            assertEquals(32L, counters.counter("ring.lag").get());
+            assertEquals(3L, counters.counter("ring.occupancy").get());
+            assertEquals(64L, counters.counter("ring.highwater").get());
+        }
+    }
+
+    @Test
+    public void shouldCountRejectedWritesWhileRetrying() throws Exception
+    {
+        try (Counters counters = new Counters(manager))
+        {
+            AtomicCounter rejects = counters.counter("ring.rejects");
+            MessagePredicate write = RingGauges.retryWrite(ring::write, 2, () ->
+            {
+                if (rejects.increment() == 0L)
+                {
+                    ring.read((t, b, i, l) -> {}, 2);
+                }
+            });
+
+            while (ring.write(1, message, 0, message.capacity()))
+            {
+                // fill the ring
+            }
+
+            assertTrue(write.test(1, message, 0, message.capacity()));
+            assertEquals(1L, rejects.get());
+
+            assertFalse(write.test(1, message, 0, message.capacity()));
+            assertEquals(3L, rejects.get());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.router;
+
+import static java.nio.ByteBuffer.allocateDirect;
+import static org.agrona.concurrent.ringbuffer.RingBufferDescriptor.TRAILER_LENGTH;
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBuffer;
+import org.junit.Test;
+
+public class RingWatchdogTest
+{
+    private final RingBuffer ring = new OneToOneRingBuffer(new UnsafeBuffer(allocateDirect(1024 + TRAILER_LENGTH)));
+    private final UnsafeBuffer message = new UnsafeBuffer(new byte[16]);
+    private final AtomicInteger stalls = new AtomicInteger();
+
+    @Test
+    public void shouldNotReportStallWhenRingIsEmpty() throws Exception
+    {
+        RingWatchdog watchdog = new RingWatchdog(ring, 0L, stalls::incrementAndGet);
+
+        watchdog.check();
+        watchdog.check();
+
+        assertEquals(0, stalls.get());
+    }
+
+    @Test
+    public void shouldNotReportStallBeforeTimeout() throws Exception
+    {
+        RingWatchdog watchdog = new RingWatchdog(ring, Long.MAX_VALUE, stalls::incrementAndGet);
+
+        ring.write(1, message, 0, message.capacity());
+
+        watchdog.check();
+        watchdog.check();
+
+        assertEquals(0, stalls.get());
+    }
+
+    @Test
+    public void shouldReportStallAfterTimeout() throws Exception
+    {
+        RingWatchdog watchdog = new RingWatchdog(ring, 0L, stalls::incrementAndGet);
+
+        ring.write(1, message, 0, message.capacity());
+
+        watchdog.check();
+        watchdog.check();
+
+        assertEquals(1, stalls.get());
+    }
+
+    @Test
+    public void shouldNotReportStallWhenConsumerProgresses() throws Exception
+    {
+        RingWatchdog watchdog = new RingWatchdog(ring, 0L, stalls::incrementAndGet);
+
+        ring.write(1, message, 0, message.capacity());
+        ring.write(1, message, 0, message.capacity());
+
+        watchdog.check();
+        ring.read((t, b, i, l) -> {}, 1);
+        watchdog.check();
+
+        assertEquals(0, stalls.get());
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2016-2017 The Reaktivity Project
+ *
+ * The Reaktivity Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.reaktivity.reaktor.internal.router;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.reaktivity.nukleus.Configuration.COMMAND_BUFFER_CAPACITY_PROPERTY_NAME;
+import static org.reaktivity.nukleus.Configuration.COUNTERS_BUFFER_CAPACITY_PROPERTY_NAME;
+import static org.reaktivity.nukleus.Configuration.DIRECTORY_PROPERTY_NAME;
+import static org.reaktivity.nukleus.Configuration.RESPONSE_BUFFER_CAPACITY_PROPERTY_NAME;
+import static org.reaktivity.nukleus.Configuration.STREAMS_BUFFER_CAPACITY_PROPERTY_NAME;
+import static org.reaktivity.nukleus.Configuration.THROTTLE_BUFFER_CAPACITY_PROPERTY_NAME;
+import static org.reaktivity.nukleus.route.RouteKind.SERVER;
+import static org.reaktivity.reaktor.internal.ReaktorConfiguration.GROUP_BUDGETS_FAIR_SHARE_PROPERTY_NAME;
+
+import java.util.Properties;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongFunction;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.reaktivity.nukleus.stream.StreamFactoryBuilder;
+import org.reaktivity.reaktor.internal.Context;
+import org.reaktivity.reaktor.internal.ReaktorConfiguration;
+import org.reaktivity.reaktor.internal.StateImpl;
+import org.reaktivity.reaktor.internal.buffer.DefaultBufferPool;
+import org.reaktivity.reaktor.internal.conductor.Conductor;
+import org.reaktivity.reaktor.internal.types.control.Role;
+import org.reaktivity.reaktor.internal.types.control.RouteFW;
+
+public class RouterTest
+{
+    private final StreamFactoryBuilder serverStreamFactory = mock(StreamFactoryBuilder.class, RETURNS_SELF);
+
+    private Context context;
+    private Router router;
+
+    @Before
+    public void newRouter() throws Exception
+    {
+        Properties properties = new Properties();
+        properties.setProperty(DIRECTORY_PROPERTY_NAME, "target/nukleus-tests/router");
+        properties.setProperty(STREAMS_BUFFER_CAPACITY_PROPERTY_NAME, "8192");
+        properties.setProperty(THROTTLE_BUFFER_CAPACITY_PROPERTY_NAME, "8192");
+        properties.setProperty(COMMAND_BUFFER_CAPACITY_PROPERTY_NAME, "1024");
+        properties.setProperty(RESPONSE_BUFFER_CAPACITY_PROPERTY_NAME, "1024");
+        properties.setProperty(COUNTERS_BUFFER_CAPACITY_PROPERTY_NAME, "4096");
+        properties.setProperty(GROUP_BUDGETS_FAIR_SHARE_PROPERTY_NAME, "true");
+
+        context = new Context().name("example").conclude(new ReaktorConfiguration(properties));
+
+        router = new Router(context);
+        router.setConductor(new Conductor(context));
+        router.setState(new StateImpl(0, 1, new DefaultBufferPool(1024, 256)));
+        router.setStreamFactoryBuilderSupplier(kind -> kind == SERVER ? serverStreamFactory : null);
+        router.setRouteHandlerSupplier(role -> null);
+        router.setAllowZeroSourceRef(kind -> false);
+        router.setAllowZeroTargetRef(kind -> true);
+        router.setLayoutSource(kind -> true);
+        router.setLayoutTarget(kind -> false);
+    }
+
+    @After
+    public void closeRouter() throws Exception
+    {
+        router.close();
+        context.close();
+    }
+
+    @Test
+    public void shouldShareGroupBudgetAcrossClaimingStreams() throws Exception
+    {
+        RouteFW route = new RouteFW.Builder()
+                .wrap(new UnsafeBuffer(new byte[256]), 0, 256)
+                .correlationId(1L)
+                .role(r -> r.set(Role.SERVER))
+                .source("source")
+                .sourceRef(0L)
+                .target("target")
+                .targetRef(0L)
+                .build();
+
+        router.doRoute(route);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<LongFunction<IntUnaryOperator>> claimer = ArgumentCaptor.forClass(LongFunction.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<LongFunction<IntUnaryOperator>> releaser = ArgumentCaptor.forClass(LongFunction.class);
+        verify(serverStreamFactory).setGroupBudgetClaimer(claimer.capture());
+        verify(serverStreamFactory).setGroupBudgetReleaser(releaser.capture());
+
+        IntUnaryOperator claimA = claimer.getValue().apply(1L);
+        IntUnaryOperator claimB = claimer.getValue().apply(1L);
+        IntUnaryOperator release = releaser.getValue().apply(1L);
+
+        assertEquals(100, release.applyAsInt(100));
+        assertEquals(60, claimA.applyAsInt(60));
+        assertEquals(40, claimB.applyAsInt(60));
+
+        assertEquals(100, release.applyAsInt(100));
+        assertEquals(50, claimA.applyAsInt(100));
+        assertEquals(0, claimA.applyAsInt(100));
+        assertEquals(50, claimB.applyAsInt(100));
+    }
+}